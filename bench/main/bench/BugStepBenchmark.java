@@ -0,0 +1,85 @@
+package main.bench;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.bug.Bug1;
+import main.bug.Bug2;
+import main.bug.BugAlgorithm;
+import main.grid.Grid;
+import main.grid.MapGenerator;
+
+// Cost of AbstractBug.nextStep against the batched runUntil: each invocation
+// is one full walk of at most STEPS steps from a fixed start. A walk often
+// ends (goal reached or given up) well before STEPS, so the steps actually
+// taken are counted in Steps: its "steps" result is the time per step, the
+// primary one the time per walk.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BugStepBenchmark {
+
+    private static final int STEPS = 1_000;
+
+    @Param({"20", "200", "2000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    @Param({"Bug1", "Bug2"})
+    public String bugName;
+
+    private Grid grid;
+    private Point start;
+    private Point goal;
+    private BugAlgorithm bug;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = MapGenerator.generate(size, size, density, new Random(42));
+        start = new Point(size / 2, size / 2);
+        goal = new Point(size - 1, size - 1);
+        grid.setObstacle(start.x, start.y, false);
+        grid.setObstacle(goal.x, goal.y, false);
+        bug = bugName.equals("Bug1") ? new Bug1() : new Bug2();
+    }
+
+    @Benchmark
+    public int walk(Steps counter) {
+        bug.init(grid, start, goal, 42);
+
+        int taken = 0;
+        for (; taken < STEPS && !bug.hasFinished() && !bug.hasGivenUp(); taken++) {
+            bug.nextStep();
+        }
+
+        counter.steps += taken;
+        return bug.getHistory().size();
+    }
+
+    @Benchmark
+    public int runUntil(Steps counter) {
+        bug.init(grid, start, goal, 42);
+        counter.steps += bug.runUntil(STEPS);
+        return bug.getHistory().size();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Steps {
+
+        public long steps;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            steps = 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package main.bench;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.grid.Grid;
+import main.grid.MapGenerator;
+import main.pathfinding.Pathfinder;
+
+// When the hierarchical pathfinder pays off. query is the cost of one more
+// length query on a map that was already searched (the HPA abstraction is
+// built in setup); firstQuery is the cost of the only query on a fresh map,
+// as in marathon and corpus runs, abstraction build included. HPA wins once
+// a map gets more than about
+//   (firstQuery[hpa] - query[hpa]) / (query[bfs] - query[hpa])
+// queries.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class HPABenchmark {
+
+    private static final int QUERIES = 256;
+
+    @Param({"500", "2000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    @Param({"bfs", "astar", "hpa"})
+    public String pathfinder;
+
+    private Grid grid;
+    private Point[] starts;
+    private Point[] goals;
+    private Pathfinder finder;
+    private int next;
+
+    // Random pairs of free cells, cycled through so no single query dominates
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rand = new Random(42);
+        grid = MapGenerator.generate(size, size, density, rand);
+
+        starts = new Point[QUERIES];
+        goals = new Point[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = freeCell(rand);
+            goals[i] = freeCell(rand);
+        }
+
+        finder = Pathfinder.byName(pathfinder);
+        finder.findPathLength(grid, starts[0], goals[0]);
+    }
+
+    @Benchmark
+    public int query() {
+        int i = next++ & (QUERIES - 1);
+        return finder.findPathLength(grid, starts[i], goals[i]);
+    }
+
+    @Benchmark
+    public int firstQuery() {
+        int i = next++ & (QUERIES - 1);
+        return Pathfinder.byName(pathfinder).findPathLength(grid, starts[i], goals[i]);
+    }
+
+    private Point freeCell(Random rand) {
+        int x, y;
+        do {
+            x = rand.nextInt(size);
+            y = rand.nextInt(size);
+        } while (grid.isObstacle(x, y));
+        return new Point(x, y);
+    }
+}
@@ -0,0 +1,36 @@
+package main.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.grid.Grid;
+import main.grid.MapGenerator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapGeneratorBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    private Random rand;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rand = new Random(42);
+    }
+
+    @Benchmark
+    public Grid generate() {
+        return MapGenerator.generate(size, size, density, rand);
+    }
+}
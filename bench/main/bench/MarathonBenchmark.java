@@ -0,0 +1,40 @@
+package main.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.bug.Bug1;
+import main.bug.Bug2;
+import main.simulation.MarathonResult;
+import main.simulation.MarathonRunner;
+
+// One full marathon map per invocation: generation, goal selection,
+// simulation and result bookkeeping. The master seed changes every call so
+// each invocation gets a different map of the given side and density.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarathonBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    @Param({"false", "true"})
+    public boolean compare;
+
+    private long seed;
+
+    @Benchmark
+    public MarathonResult singleMap() {
+        MarathonRunner runner = new MarathonRunner(1, seed++);
+        runner.setMapShape(size, density);
+        return runner.run(1, Bug2::new, compare, Bug1::new);
+    }
+}
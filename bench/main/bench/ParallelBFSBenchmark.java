@@ -0,0 +1,68 @@
+package main.bench;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.grid.Grid;
+import main.grid.MapGenerator;
+import main.pathfinding.BFSPathfinder;
+import main.pathfinding.ParallelBFSPathfinder;
+import main.pathfinding.Pathfinder;
+
+// Parallel speedup of ParallelBFSPathfinder: the same corner-to-corner
+// length query on pools of 1 to 8 threads, against the sequential
+// BFSPathfinder (threads = 0). Speedup is the threads = 0 time over the
+// time at each pool size.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelBFSBenchmark {
+
+    @Param({"2000", "10000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    private Grid grid;
+    private Point start;
+    private Point goal;
+    private ForkJoinPool pool;
+    private Pathfinder finder;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = MapGenerator.generate(size, size, density, new Random(42));
+        start = new Point(0, 0);
+        goal = new Point(size - 1, size - 1);
+        grid.setObstacle(start.x, start.y, false);
+        grid.setObstacle(goal.x, goal.y, false);
+
+        if (threads == 0) {
+            finder = new BFSPathfinder();
+        } else {
+            pool = new ForkJoinPool(threads);
+            finder = new ParallelBFSPathfinder(pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public int findPathLength() {
+        return finder.findPathLength(grid, start, goal);
+    }
+}
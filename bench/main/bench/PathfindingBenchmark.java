@@ -0,0 +1,56 @@
+package main.bench;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import main.grid.Grid;
+import main.grid.MapGenerator;
+import main.pathfinding.Pathfinder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    @Param({"20", "200", "2000", "10000"})
+    public int size;
+
+    @Param({"0.01", "0.14", "0.30"})
+    public double density;
+
+    @Param({"bfs", "astar", "jps", "pbfs", "bits"})
+    public String pathfinder;
+
+    private Grid grid;
+    private Point start;
+    private Point goal;
+    private Pathfinder finder;
+
+    // Opposite corners, cleared so there is always something to search
+    @Setup(Level.Trial)
+    public void setup() {
+        grid = MapGenerator.generate(size, size, density, new Random(42));
+        start = new Point(0, 0);
+        goal = new Point(size - 1, size - 1);
+        grid.setObstacle(start.x, start.y, false);
+        grid.setObstacle(goal.x, goal.y, false);
+        finder = Pathfinder.byName(pathfinder);
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        return finder.findPath(grid, start, goal);
+    }
+
+    @Benchmark
+    public int findPathLength() {
+        return finder.findPathLength(grid, start, goal);
+    }
+}
@@ -9,16 +9,24 @@ import main.grid.MapGenerator;
 import main.bug.*;
 import main.config.RunMode;
 import main.simulation.CompareSimulator;
+import main.simulation.CorpusRunner;
 import main.simulation.MarathonResult;
 import main.simulation.MarathonRunner;
 import main.simulation.Simulator;
+import main.simulation.TournamentResult;
+import main.simulation.TournamentRunner;
+import main.simulation.sink.MapRecordSink;
 import main.ui.ComparePanel;
+import main.ui.CorpusConsoleView;
 import main.ui.GridPanel;
+import main.ui.LayeredGridPanel;
 
 import java.awt.Point;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.Random;
 
 import javax.swing.JButton;
@@ -26,7 +34,11 @@ import javax.swing.JPanel;
 import java.awt.BorderLayout;
 
 import main.pathfinding.BFSPathfinder;
+import main.pathfinding.CachingPathfinder;
+import main.pathfinding.PathCache;
+import main.pathfinding.Pathfinder;
 import java.util.List;
+import java.util.function.Supplier;
 
 import java.awt.GridLayout;
 import main.bugStats.BugStats;
@@ -34,12 +46,17 @@ import java.awt.Dimension;
 
 import javax.swing.JSplitPane;
 import main.ui.MarathonConsoleView;
+import main.ui.TournamentConsoleView;
 
 
 public class App {
     private static final int NORMAL_DELAY = 200;
     private static final int FAST_DELAY = 20;
 
+    // Optimal paths kept by -cache, in memory and on disk: at most 16M
+    // path cells (64 MB)
+    private static final long PATH_CACHE_MAX_CELLS = 1L << 24;
+
     private static final double OBS_PROB = loadObsProb();
 
     private static double loadObsProb() {
@@ -62,12 +79,30 @@ public class App {
         int amount;
         boolean marathonCompare;
         String mapName;
+        int parallelism;
+        Pathfinder pathfinder;
+        String recordFile; // nullable
+        String bugName;    // main bug, see BugRegistry
+        String vsName;     // second bug of the compare modes
+        String pathCacheFile; // nullable
     }
 
     public static void main(String[] args) {
 
         RunConfig config = parseArguments(args);
 
+        CachingPathfinder cachingPathfinder = null;
+        if (config.pathCacheFile != null) {
+            try {
+                PathCache cache = PathCache.open(Paths.get(config.pathCacheFile), PATH_CACHE_MAX_CELLS);
+                cachingPathfinder = new CachingPathfinder(config.pathfinder, cache);
+                config.pathfinder = cachingPathfinder;
+                System.out.println("Path cache: " + config.pathCacheFile + " (" + cache.size() + " entries)");
+            } catch (IOException e) {
+                System.out.println("Failed to open path cache (" + e.getMessage() + "). Running without it.");
+            }
+        }
+
         switch (config.mode) {
             case DEBUG:
             case COMPARE:
@@ -75,17 +110,43 @@ public class App {
                 break;
 
             case MARATHON:
-                if(config.marathonCompare) {runMarathonCompareMode(config.amount);}
-                else {runMarathonMode(config.amount);}
+                if(config.marathonCompare) {runMarathonCompareMode(config);}
+                else {runMarathonMode(config);}
                 break;
 
             case BUILD:
                 new MapCreator();
                 break;
 
+            case CONVERT:
+                runConvertMode(config);
+                break;
+
+            case CORPUS:
+                runCorpusMode(config);
+                break;
+
+            case TOURNAMENT:
+                runTournamentMode(config);
+                break;
+
             default:
                 printUsage();
         }
+
+        if (cachingPathfinder != null) {
+            savePathCache(cachingPathfinder.getCache());
+        }
+    }
+
+    private static void savePathCache(PathCache cache) {
+        try {
+            cache.save();
+            System.out.println("Path cache: " + cache.getHits() + " hits, "
+                    + cache.getMisses() + " misses, " + cache.size() + " entries saved");
+        } catch (IOException e) {
+            System.out.println("Failed to save path cache: " + e.getMessage());
+        }
     }
 
     private static RunConfig parseArguments(String[] args) {
@@ -96,6 +157,13 @@ public class App {
         config.amount = -1;
         config.marathonCompare = false;
         config.mapName = null;
+        config.parallelism = 1;
+        config.pathfinder = new BFSPathfinder();
+        config.recordFile = null;
+        config.bugName = "Bug2";
+        config.vsName = "Bug1";
+
+        boolean usageError = false;
 
         for (int i = 0; i < args.length; i++) {
 
@@ -122,6 +190,61 @@ public class App {
                     }
                     break;
 
+                case "-t":
+                    config.mode = RunMode.TOURNAMENT;
+                    if (i + 1 < args.length) {
+                        config.amount = Integer.parseInt(args[i + 1]);
+                        i++;
+                    }
+                    break;
+
+                case "-p":
+                    if (i + 1 < args.length) {
+                        config.parallelism = Integer.parseInt(args[i + 1]);
+                        i++;
+                    }
+                    break;
+
+                case "-out":
+                    if (i + 1 < args.length) {
+                        config.recordFile = args[i + 1];
+                        i++;
+                    }
+                    break;
+
+                case "-cache":
+                    if (i + 1 < args.length) {
+                        config.pathCacheFile = args[i + 1];
+                        i++;
+                    }
+                    break;
+
+                case "-pf":
+                    if (i + 1 < args.length) {
+                        try {
+                            config.pathfinder = Pathfinder.byName(args[i + 1]);
+                        } catch (IllegalArgumentException e) {
+                            System.out.println(e.getMessage());
+                            usageError = true;
+                        }
+                        i++;
+                    }
+                    break;
+
+                case "-bug":
+                    if (i + 1 < args.length) {
+                        config.bugName = args[i + 1];
+                        i++;
+                    }
+                    break;
+
+                case "-vs":
+                    if (i + 1 < args.length) {
+                        config.vsName = args[i + 1];
+                        i++;
+                    }
+                    break;
+
                 case "-seed":
                     if (i + 1 < args.length) {
                         config.seed = Long.parseLong(args[i + 1]);
@@ -139,9 +262,43 @@ public class App {
                 case "-b":
                     config.mode = RunMode.BUILD;
                     break;
+
+                case "-corpus":
+                    config.mode = RunMode.CORPUS;
+                    if (i + 1 < args.length) {
+                        config.mapName = args[i + 1];
+                        i++;
+                    }
+
+                    if(i + 1 < args.length && args[i + 1].equals("-c")) {
+                        config.marathonCompare = true;
+                        i++;
+                    }
+                    break;
+
+                case "-convert":
+                    config.mode = RunMode.CONVERT;
+                    if (i + 1 < args.length) {
+                        config.mapName = args[i + 1];
+                        i++;
+                    }
+                    break;
+            }
+        }
+
+        // Unknown names are reported before any mode starts
+        for (String name : new String[] { config.bugName, config.vsName }) {
+            if (!BugRegistry.contains(name)) {
+                System.out.println("Unknown bug: " + name + " (known: " + BugRegistry.names() + ")");
+                usageError = true;
             }
         }
 
+        // Falls through to the usage text
+        if (usageError) {
+            config.mode = RunMode.UNKNOWN;
+        }
+
         return config;
     }
 
@@ -163,7 +320,54 @@ public class App {
         System.out.println("  java main.App -d [-map <nameMap> | -seed <seed>]          |  Debug mode (visual)");
         System.out.println("  java main.App -c [-map <nameMap> | -seed <seed>]          |  Compare two bugs");
         System.out.println("  java main.App -m <amount> [-c (add comparation Mode)]     |  Marathon test mode");
+        System.out.println("       [-p <threads> (0 = all cores)] [-seed <seed>]        |  Parallel / reproducible marathon");
+        System.out.println("       [-out <file.csv | file.jsonl | file.bin>]            |  One record per map");
+        System.out.println("  java main.App -t <amount> [-p <threads>] [-seed <seed>]   |  Tournament of every bug, same maps");
         System.out.println("  java main.App -b                                          |  Marathon test mode");
+        System.out.println("  java main.App -convert <file.map | dir>                   |  Convert to binary .bmap");
+        System.out.println("  java main.App -corpus <dir> [-c] [-p <threads>]           |  Run bugs over every map in dir");
+        System.out.println("  [-bug <name>] [-vs <name>]                                |  Bugs to run (default Bug2 vs Bug1)");
+        System.out.println("  [-pf bfs | astar | jps | field | pbfs | bits | hpa]       |  Optimal path search (default bfs)");
+        System.out.println("  [-cache <file>]                                           |  Reuse optimal paths across runs");
+    }
+
+    private static void runConvertMode(RunConfig config) {
+
+        if (config.mapName == null) {
+            printUsage();
+            return;
+        }
+
+        try {
+            int converted = BinaryMapFormat.convert(new java.io.File(config.mapName));
+            System.out.println("Converted " + converted + " map(s)");
+        } catch (IOException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+        }
+    }
+
+    private static void runCorpusMode(RunConfig config) {
+
+        if (config.mapName == null) {
+            printUsage();
+            return;
+        }
+
+        System.out.println("Starting Corpus Mode on " + config.mapName + "...");
+
+        CorpusRunner runner = new CorpusRunner(config.parallelism, config.pathfinder);
+
+        try {
+            List<CorpusRunner.MapResult> results = runner.run(
+                    new java.io.File(config.mapName),
+                    BugRegistry.byName(config.bugName),
+                    config.marathonCompare ? BugRegistry.byName(config.vsName) : null);
+
+            CorpusConsoleView.show(results);
+
+        } catch (IOException e) {
+            System.out.println("Corpus run failed: " + e.getMessage());
+        }
     }
 
     private static void runGuiMode(RunConfig config) {
@@ -190,12 +394,15 @@ public class App {
                 grid = loaded.grid;
                 start = loaded.start;
                 goal = loaded.goal;
-                optimalPath = BFSPathfinder.findPath(grid, start, goal);
+
+                if (grid.connected(start.x, start.y, goal.x, goal.y)) {
+                    optimalPath = config.pathfinder.findPath(grid, start, goal);
+                }
 
                 System.out.println("Loaded map: " + config.mapName);
 
             } catch (Exception e) {
-                System.out.println("Failed to load map. Falling back to random.");
+                System.out.println("Failed to load map (" + e.getMessage() + "). Falling back to random.");
                 flag = true;
             }
 
@@ -217,11 +424,16 @@ public class App {
             grid = MapGenerator.generate(width, height, OBS_PROB, rand);
 
             start = getRandomFreeCell(grid, rand);
-            goal = start;
 
-            while (goal.equals(start) || (optimalPath != null && optimalPath.size() < 10)) {
-                goal = getRandomFreeCell(grid, rand);
-                optimalPath = BFSPathfinder.findPath(grid, start, goal);
+            BFSPathfinder.GoalChoice choice = BFSPathfinder.pickGoal(grid, start, 10, rand);
+            if (choice != null) {
+                goal = choice.goal;
+                optimalPath = config.pathfinder.findPath(grid, start, goal);
+            } else {
+                // Start is walled in: any other free cell, no optimal path
+                do {
+                    goal = getRandomFreeCell(grid, rand);
+                } while (goal.equals(start));
             }
         }
 
@@ -237,14 +449,15 @@ public class App {
         // CREATE BUGS
         // -----------------------
 
-        BugAlgorithm bug1 = new Bug2();
-        bug1.init(grid, start, goal);
+        BugAlgorithm bug1 = BugRegistry.byName(config.bugName).get();
+        long bugSeed = MarathonRunner.bugSeed(config.seed == null ? generatedSeed : config.seed);
+        bug1.init(grid, start, goal, bugSeed);
 
         final BugAlgorithm bug2;
 
         if (mode == RunMode.COMPARE) {
-            bug2 = new Bug1();
-            bug2.init(grid, start, goal);
+            bug2 = BugRegistry.byName(config.vsName).get();
+            bug2.init(grid, start, goal, bugSeed);
         } else {
             bug2 = null;
         }
@@ -272,7 +485,7 @@ public class App {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setTitle(frame.getTitle() + " | Seed: " + (config.seed == null ? generatedSeed : config.seed));
 
-        JPanel panel;
+        LayeredGridPanel panel;
 
         if (mode == RunMode.DEBUG) {
             panel = new GridPanel(grid, bug1, goal, optimalPath);
@@ -390,7 +603,7 @@ public class App {
                 compareSimulator.step();
             }
 
-            panel.repaint();
+            panel.refresh();
             updateStatsUI.run();
 
             boolean bug1Done = bug1.hasFinished() || bug1.hasGivenUp();
@@ -442,7 +655,7 @@ public class App {
                 compareSimulator.step();
             }
 
-            panel.repaint();
+            panel.refresh();
             updateStatsUI.run();
 
             boolean bug1Done = bug1.hasFinished() || bug1.hasGivenUp();
@@ -481,7 +694,7 @@ public class App {
                 }
             }
 
-            panel.repaint();
+            panel.refresh();
         });
 
         // -----------------------
@@ -500,7 +713,7 @@ public class App {
                 bug2.resetToStep(0);
             }
 
-            panel.repaint();
+            panel.refresh();
         });
 
         // -----------------------
@@ -608,34 +821,111 @@ public class App {
     //              MARATHON CODE
     //********************************************* */
 
-    private static void runMarathonMode(int amount) {
+    private static MarathonRunner createMarathonRunner(RunConfig config) {
 
-        System.out.println("Starting Marathon Mode...");
+        MarathonRunner runner;
+
+        if (config.seed != null) {
+            runner = new MarathonRunner(config.parallelism, config.seed);
+            System.out.println("Using master seed: " + config.seed);
+        } else {
+            runner = new MarathonRunner(config.parallelism);
+            System.out.println("Generated master seed: " + runner.getMasterSeed());
+        }
+
+        return runner;
+    }
+
+    private static void runTournamentMode(RunConfig config) {
+
+        System.out.println("Starting Tournament Mode...");
 
-        MarathonRunner runner = new MarathonRunner();
+        TournamentRunner runner;
 
-        MarathonResult result = runner.run(
-                (amount <= 0) ? 0 : amount,
-                () -> new Bug2(),
-                false,
-                null
+        if (config.seed != null) {
+            runner = new TournamentRunner(config.parallelism, config.seed);
+            System.out.println("Using master seed: " + config.seed);
+        } else {
+            runner = new TournamentRunner(config.parallelism);
+            System.out.println("Generated master seed: " + runner.getMasterSeed());
+        }
+
+        List<String> names = BugRegistry.names();
+        List<Supplier<BugAlgorithm>> factories = new java.util.ArrayList<>();
+        for (String name : names) {
+            factories.add(BugRegistry.byName(name));
+        }
+
+        TournamentResult result = runner.run(
+                (config.amount <= 0) ? 0 : config.amount,
+                names,
+                factories
         );
 
-        MarathonConsoleView.show(result);
+        TournamentConsoleView.show(result);
+    }
+
+    private static void runMarathonMode(RunConfig config) {
+
+        System.out.println("Starting Marathon Mode...");
+
+        runMarathon(config, BugRegistry.byName(config.bugName), false, null);
     }
 
-    private static void runMarathonCompareMode(int amount) {
+    private static void runMarathonCompareMode(RunConfig config) {
         System.out.println("Starting Marathon Compare Mode...");
 
-        MarathonRunner runner = new MarathonRunner();
+        runMarathon(config, BugRegistry.byName(config.bugName), true, BugRegistry.byName(config.vsName));
+    }
 
-        MarathonResult result = runner.run(
-                (amount <= 0) ? 0 : amount,
-                () -> new Bug2(),
-                true,
-                () -> new Bug1()
-        );
+    private static void runMarathon(
+            RunConfig config,
+            Supplier<BugAlgorithm> bugFactory,
+            boolean compareMode,
+            Supplier<BugAlgorithm> bug2Factory
+    ) {
+
+        if (config.recordFile != null && !MapRecordSink.isSupported(config.recordFile)) {
+            System.out.println("Unknown record format: " + config.recordFile);
+            printUsage();
+            return;
+        }
+
+        MarathonRunner runner = createMarathonRunner(config);
+        MapRecordSink sink = null;
+
+        try {
+            if (config.recordFile != null) {
+                sink = MapRecordSink.open(config.recordFile);
+                runner.setRecordSink(sink);
+                System.out.println("Writing map records to: " + config.recordFile);
+            }
 
-        MarathonConsoleView.show(result);
+            MarathonResult result = runner.run(
+                    (config.amount <= 0) ? 0 : config.amount,
+                    bugFactory,
+                    compareMode,
+                    bug2Factory
+            );
+
+            if (sink != null) {
+                sink.close();
+            }
+
+            MarathonConsoleView.show(result);
+
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("Failed to write map records: " + e.getMessage());
+            closeQuietly(sink);
+        }
+    }
+
+    private static void closeQuietly(MapRecordSink sink) {
+        if (sink == null) return;
+        try {
+            sink.close();
+        } catch (IOException ignored) {
+            // already reporting the first failure
+        }
     }
 }
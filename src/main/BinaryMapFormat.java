@@ -0,0 +1,170 @@
+package main;
+
+import main.grid.Grid;
+import java.awt.Point;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Binary .bmap map files. Big-endian layout:
+//   int magic ("BMAP"), int version,
+//   int rows, int cols,
+//   int startX, int startY, int goalX, int goalY   (-1 when not set)
+//   long crc32 of the body
+//   body: rows * ceil(cols / 64) longs, the Grid's packed row words
+//         (bit i of word w in row r = cell (64 * w + i, r), 1 = obstacle)
+public class BinaryMapFormat {
+
+    public static final int MAGIC = 0x424D4150; // "BMAP"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".bmap";
+
+    private static final int HEADER_SIZE = 4 * 8 + 8;
+
+    public static void write(Path path, Grid grid, Point start, Point goal) throws IOException {
+
+        int rows = grid.getHeight();
+        int wordsPerRow = grid.getWordsPerRow();
+
+        // Checksum first, streaming the body through a small buffer
+        CRC32 crc = new CRC32();
+        ByteBuffer chunk = ByteBuffer.allocate(8 * 1024);
+
+        for (int r = 0; r < rows; r++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                if (!chunk.hasRemaining()) {
+                    chunk.flip();
+                    crc.update(chunk);
+                    chunk.clear();
+                }
+                chunk.putLong(grid.getRowWord(r, w));
+            }
+        }
+        chunk.flip();
+        crc.update(chunk);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(path.toFile()), 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rows);
+            out.writeInt(grid.getWidth());
+            out.writeInt(start == null ? -1 : start.x);
+            out.writeInt(start == null ? -1 : start.y);
+            out.writeInt(goal == null ? -1 : goal.x);
+            out.writeInt(goal == null ? -1 : goal.y);
+            out.writeLong(crc.getValue());
+
+            for (int r = 0; r < rows; r++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    out.writeLong(grid.getRowWord(r, w));
+                }
+            }
+        }
+    }
+
+    public static MapFileLoader.LoadedMap read(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(path + ": truncated header");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + ": map file too large (" + size + " bytes)");
+            }
+
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buf.getInt() != MAGIC) {
+                throw new IOException(path + ": not a " + EXTENSION + " file");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + ": unsupported " + EXTENSION + " version " + version);
+            }
+
+            int rows = buf.getInt();
+            int cols = buf.getInt();
+            Point start = readPoint(buf);
+            Point goal = readPoint(buf);
+            long expectedCrc = buf.getLong();
+
+            // The header is checked against the file size before anything is
+            // allocated, so a corrupt one cannot ask for a huge grid
+            if (rows <= 0 || cols <= 0) {
+                throw new IOException(path + ": bad dimensions " + rows + " x " + cols);
+            }
+
+            int wordsPerRow = (cols + 63) >>> 6;
+            long bodySize = 8L * wordsPerRow * rows;
+
+            if (size - HEADER_SIZE != bodySize) {
+                throw new IOException(path + ": body is " + (size - HEADER_SIZE) + " bytes, expected " + bodySize);
+            }
+
+            checkInside(path, "start", start, cols, rows);
+            checkInside(path, "goal", goal, cols, rows);
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate());
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException(path + ": checksum mismatch");
+            }
+
+            Grid grid = new Grid(cols, rows);
+
+            for (int r = 0; r < rows; r++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    grid.setRowWord(r, w, buf.getLong());
+                }
+            }
+
+            return new MapFileLoader.LoadedMap(grid, start, goal);
+        }
+    }
+
+    // Converts a .map file, or every .map file of a directory, next to the
+    // source. Returns how many files were written.
+    public static int convert(File source) throws IOException {
+
+        if (source.isDirectory()) {
+            File[] files = source.listFiles((dir, name) -> name.endsWith(".map"));
+            int converted = 0;
+            if (files != null) {
+                for (File file : files) {
+                    converted += convert(file);
+                }
+            }
+            return converted;
+        }
+
+        MapFileLoader.LoadedMap map = MapFileLoader.load(source.toPath());
+        String name = source.getName();
+        File target = new File(source.getParentFile(),
+                name.substring(0, name.length() - ".map".length()) + EXTENSION);
+
+        write(target.toPath(), map.grid, map.start, map.goal);
+        System.out.println(source + " -> " + target);
+        return 1;
+    }
+
+    private static void checkInside(Path path, String what, Point p, int cols, int rows) throws IOException {
+        if (p != null && (p.x >= cols || p.y >= rows)) {
+            throw new IOException(path + ": " + what + " (" + p.x + ", " + p.y + ") outside the "
+                    + cols + " x " + rows + " grid");
+        }
+    }
+
+    private static Point readPoint(ByteBuffer buf) {
+        int x = buf.getInt();
+        int y = buf.getInt();
+        return (x < 0 || y < 0) ? null : new Point(x, y);
+    }
+}
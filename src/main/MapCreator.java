@@ -4,6 +4,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 
+import main.grid.Grid;
+
 public class MapCreator extends JFrame {
 
     private int rows = 20;
@@ -219,6 +221,11 @@ public class MapCreator extends JFrame {
 
         java.io.File file = fileChooser.getSelectedFile();
 
+        if (file.getName().endsWith(BinaryMapFormat.EXTENSION)) {
+            saveBinaryMap(file);
+            return;
+        }
+
         try (java.io.PrintWriter writer = new java.io.PrintWriter(file)) {
 
             writer.println(rows + " " + cols);
@@ -250,6 +257,32 @@ public class MapCreator extends JFrame {
         }
     }
 
+    private void saveBinaryMap(java.io.File file) {
+
+        Grid map = new Grid(cols, rows);
+        Point start = null;
+        Point goal = null;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                switch (grid[r][c]) {
+                    case WALL:  map.setObstacle(c, r, true); break;
+                    case START: start = new Point(c, r); break;
+                    case GOAL:  goal = new Point(c, r); break;
+                    default: break;
+                }
+            }
+        }
+
+        try {
+            BinaryMapFormat.write(file.toPath(), map, start, goal);
+            JOptionPane.showMessageDialog(this, "Map saved successfully!");
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Error saving map.");
+        }
+    }
+
     private void handleClick(MouseEvent e) {
 
         int cellSize = Math.min(
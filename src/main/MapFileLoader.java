@@ -3,52 +3,164 @@ package main;
 import main.grid.Grid;
 import java.awt.Point;
 import java.io.*;
-import java.util.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class MapFileLoader {
 
+    // Loads maps/<name>.map, or its binary maps/<name>.bmap when that is
+    // not older (see preferBinary)
     public static LoadedMap load(String name) throws IOException {
 
         File file = new File("maps/" + name + ".map");
+        File binary = new File("maps/" + name + BinaryMapFormat.EXTENSION);
+
+        if (preferBinary(file, binary)) {
+            return BinaryMapFormat.read(binary.toPath());
+        }
 
         if (!file.exists()) {
             throw new FileNotFoundException("Map not found: " + name);
         }
 
-        try (Scanner sc = new Scanner(file)) {
+        return load(file.toPath());
+    }
+
+    // Whether to read the .bmap instead of the text map it was converted
+    // from: only when the text map is gone or was not edited since, so a
+    // stale conversion is never used in its place
+    public static boolean preferBinary(File text, File binary) {
+        if (!binary.exists()) return false;
+        return !text.exists() || binary.lastModified() >= text.lastModified();
+    }
+
+    // .bmap files are read by BinaryMapFormat. Text maps are memory-mapped
+    // and parsed straight into the grid's packed rows, 64 cells per word,
+    // without building a String per line.
+    public static LoadedMap load(Path path) throws IOException {
+
+        if (path.toString().endsWith(BinaryMapFormat.EXTENSION)) {
+            return BinaryMapFormat.read(path);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + ": map file too large (" + size + " bytes)");
+            }
+
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return parse(buf, path.toString());
+        }
+    }
+
+    private static LoadedMap parse(MappedByteBuffer buf, String source) throws IOException {
 
-            int rows = sc.nextInt();
-            int cols = sc.nextInt();
-            sc.nextLine();
+        int rows = readInt(buf, source, "row count");
+        int cols = readInt(buf, source, "column count");
+        skipLine(buf);
 
-            Grid grid = new Grid(cols, rows);
+        // Every cell takes at least one byte of the file, so a header asking
+        // for more cells than the file holds is rejected before allocating
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException(source + ": bad dimensions " + rows + " x " + cols);
+        }
+        if ((long) rows * cols > buf.capacity()) {
+            throw new IOException(source + ": header claims " + rows + " x " + cols
+                    + " cells but the file has only " + buf.capacity() + " bytes");
+        }
 
-            Point start = null;
-            Point goal = null;
+        Grid grid = new Grid(cols, rows);
 
-            for (int r = 0; r < rows; r++) {
+        Point start = null;
+        Point goal = null;
 
-                String line = sc.nextLine();
+        for (int r = 0; r < rows; r++) {
 
-                for (int c = 0; c < cols; c++) {
+            if (!buf.hasRemaining()) {
+                throw new IOException(source + ": expected " + rows + " rows, found " + r);
+            }
+
+            long word = 0;
+            int c = 0;
+
+            while (buf.hasRemaining()) {
 
-                    char ch = line.charAt(c);
+                byte ch = buf.get();
+                if (ch == '\n') break;
+                if (ch == '\r') continue;
+
+                if (c >= cols) {
+                    throw new IOException(source + ": line " + (r + 2) + " is longer than " + cols + " columns");
+                }
 
-                    switch (ch) {
-                        case '#':
-                            grid.setObstacle(c, r, true);
-                            break;
-                        case 'S':
-                            start = new Point(c, r);
-                            break;
-                        case 'G':
-                            goal = new Point(c, r);
-                            break;
-                    }
+                switch (ch) {
+                    case '#':
+                        word |= 1L << c;
+                        break;
+                    case 'S':
+                        start = new Point(c, r);
+                        break;
+                    case 'G':
+                        goal = new Point(c, r);
+                        break;
                 }
+
+                c++;
+                if ((c & 63) == 0) {
+                    grid.setRowWord(r, (c >>> 6) - 1, word);
+                    word = 0;
+                }
+            }
+
+            if (c != cols) {
+                throw new IOException(source + ": line " + (r + 2) + " has " + c + " columns, expected " + cols);
+            }
+
+            if ((c & 63) != 0) {
+                grid.setRowWord(r, c >>> 6, word);
             }
+        }
+
+        return new LoadedMap(grid, start, goal);
+    }
+
+    private static int readInt(MappedByteBuffer buf, String source, String what) throws IOException {
+
+        while (buf.hasRemaining() && isBlank(buf.get(buf.position()))) {
+            buf.get();
+        }
+
+        long value = 0;
+        int digits = 0;
+
+        while (buf.hasRemaining()) {
+            byte ch = buf.get(buf.position());
+            if (ch < '0' || ch > '9') break;
+            value = value * 10 + (ch - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException(source + ": " + what + " too large");
+            }
+            buf.get();
+            digits++;
+        }
+
+        if (digits == 0) {
+            throw new IOException(source + ": missing " + what + " in header");
+        }
+        return (int) value;
+    }
+
+    private static boolean isBlank(byte ch) {
+        return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n';
+    }
 
-            return new LoadedMap(grid, start, goal);
+    private static void skipLine(MappedByteBuffer buf) {
+        while (buf.hasRemaining() && buf.get() != '\n') {
+            // rest of the header line
         }
     }
 
@@ -63,4 +175,4 @@ public class MapFileLoader {
             this.goal = go;
         }
     }
-}
\ No newline at end of file
+}
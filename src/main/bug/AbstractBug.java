@@ -1,8 +1,9 @@
 package main.bug;
 
 import java.awt.Point;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import main.grid.Grid;
 
@@ -11,12 +12,29 @@ public abstract class AbstractBug implements BugAlgorithm {
     protected Grid grid;
     protected Point goal;
 
-    protected List<Point> history = new ArrayList<>();
+    protected Trajectory history = new Trajectory();
     protected int currentStepIndex = 0;
     protected boolean finished = false;
 
     private BugState state = BugState.RUNNING;
 
+    // Random source for moveTo. Not synchronised, so a bug must only be
+    // stepped by one thread at a time. Reseeded by init(..., seed).
+    protected SplittableRandom random = new SplittableRandom();
+
+    // Loop detection (opt-in): entries per cell, giving up once a cell is
+    // entered more than maxVisitsPerCell times. Staying put counts as
+    // entering the current cell again. Counts are kept only for the cells
+    // the walk touched, and every entry is logged (a cell index for a move,
+    // its complement for staying put) so resetToStep can take back exactly
+    // the entries after the step it returns to.
+    private int maxVisitsPerCell = 0; // 0 = disabled
+    private final CellCounts visits = new CellCounts();
+    private int[] visitLog = new int[64];
+    private int visitLogSize = 0;
+    private int visitCursor = 0;    // entries applied to visits
+    private int visitCursorStep = 0; // step of the last move applied
+
     @Override
     public BugState getState() {
         return state;
@@ -36,47 +54,133 @@ public abstract class AbstractBug implements BugAlgorithm {
         return state == BugState.GAVE_UP;
     }
 
+    // Bugs whose next move depends only on their position and the goal can
+    // use 1: any revisit (or a step that does not move) repeats forever.
+    // Bugs with more internal state should allow as many entries per cell as
+    // that state can take distinct values.
+    protected void setLoopDetection(int maxVisitsPerCell) {
+        this.maxVisitsPerCell = maxVisitsPerCell;
+    }
+
     @Override
     public void init(Grid grid, Point start, Point goal) {
         this.grid = grid;
         this.goal = goal;
 
-        history.clear();
-        history.add(new Point(start));
+        history.reset(grid.getWidth());
+        history.add(start.x, start.y);
         currentStepIndex = 0;
         finished = false;
+        state = BugState.RUNNING;
+
+        if (maxVisitsPerCell > 0) {
+            visits.clear();
+            visitLogSize = 0;
+            visitCursor = 0;
+            visitCursorStep = 0;
+            visit(start.y * grid.getWidth() + start.x);
+        }
+    }
+
+    @Override
+    public void init(Grid grid, Point start, Point goal, long seed) {
+        random = new SplittableRandom(seed);
+        init(grid, start, goal);
     }
 
     @Override
     public Point nextStep() {
 
-        if (finished) return getCurrentPosition();
+        if (finished || state == BugState.GAVE_UP) return getCurrentPosition();
 
         // If we are simulating from a past point, truncate the future history
-        if (currentStepIndex < history.size() - 1) {
-            history = new ArrayList<>(history.subList(0, currentStepIndex + 1));
+        truncateFuture();
+
+        step();
+        return getCurrentPosition();
+    }
+
+    // Truncates once, then steps without building a Point for the current
+    // position and with a single state check per step
+    @Override
+    public int runUntil(int maxSteps) {
+
+        if (finished || state == BugState.GAVE_UP) return 0;
+
+        truncateFuture();
+
+        int steps = 0;
+        while (steps < maxSteps) {
+            steps++;
+            if (!step()) break;
         }
+        return steps;
+    }
+
+    // One move from the last cell of the history. Returns false once the bug
+    // has finished or given up.
+    private boolean step() {
 
-        Point current = history.get(currentStepIndex);
+        int x = history.getX(currentStepIndex);
+        int y = history.getY(currentStepIndex);
 
-        if (current.equals(goal)) {
+        if (x == goal.x && y == goal.y) {
             state = BugState.FINISHED;
             finished = true;
-            return current;
+            return false;
         }
 
         Point next = moveTo(goal);
 
-        if (grid.isObstacle(next.x, next.y)) {
-            next = current;
+        if (grid.isObstacle(next.x, next.y) || (next.x == x && next.y == y)) {
+            if (maxVisitsPerCell > 0) visit(~(y * grid.getWidth() + x));
+            return state == BugState.RUNNING;
         }
 
-        if(!current.equals(next)) {
-            history.add(next);
-            currentStepIndex++;
+        history.add(next.x, next.y);
+        currentStepIndex++;
+
+        if (maxVisitsPerCell > 0) visit(next.y * grid.getWidth() + next.x);
+
+        return state == BugState.RUNNING;
+    }
+
+    private void truncateFuture() {
+        history.truncate(currentStepIndex + 1);
+        visitLogSize = visitCursor;
+    }
+
+    // Logs and counts an entry: a cell index for a move, ~cell for staying put
+    private void visit(int entry) {
+
+        if (visitLogSize == visitLog.length) {
+            visitLog = Arrays.copyOf(visitLog, visitLogSize * 2);
         }
+        visitLog[visitLogSize++] = entry;
+        visitCursor = visitLogSize;
+        if (entry >= 0 && visitLogSize > 1) visitCursorStep++;
 
-        return next;
+        if (visits.increment(entry >= 0 ? entry : ~entry) > maxVisitsPerCell) {
+            state = BugState.GAVE_UP;
+        }
+    }
+
+    // Moves the counts to right after the move into step, taking back or
+    // replaying only the logged entries in between
+    private void seekVisits(int step) {
+
+        while (visitCursorStep > step
+                || (visitCursor > 0 && visitLog[visitCursor - 1] < 0)) {
+            int entry = visitLog[--visitCursor];
+            if (entry >= 0) visitCursorStep--;
+            visits.decrement(entry >= 0 ? entry : ~entry);
+        }
+
+        while (visitCursorStep < step) {
+            int entry = visitLog[visitCursor++];
+            if (entry >= 0) visitCursorStep++;
+            visits.increment(entry >= 0 ? entry : ~entry);
+        }
     }
 
     protected abstract Point moveTo(Point p);
@@ -97,6 +201,10 @@ public abstract class AbstractBug implements BugAlgorithm {
             currentStepIndex = step;
             finished = false;
             state = BugState.RUNNING;
+
+            if (maxVisitsPerCell > 0) {
+                seekVisits(step);
+            }
         }
     }
 
@@ -104,4 +212,4 @@ public abstract class AbstractBug implements BugAlgorithm {
     public int getCurrentStepIndex() {
         return currentStepIndex;
     }
-}
\ No newline at end of file
+}
@@ -8,9 +8,14 @@ import java.awt.Point;
 
 public class Bug2 extends AbstractBug {
 
+    public Bug2() {
+        // Next move only depends on the current cell and the goal
+        setLoopDetection(1);
+    }
+
     @Override
     public Point moveTo(Point goal) {
-        Point current = history.get(currentStepIndex);
+        Point current = getCurrentPosition();
         int dx = Integer.compare(goal.x, current.x);
         int dy = Integer.compare(goal.y, current.y);
 
@@ -9,8 +9,27 @@ public interface BugAlgorithm {
 
     void init(Grid grid, Point start, Point goal);
 
+    // Same as init, also reseeding the bug's random source so that random
+    // bugs replay the same moves for the same seed. Deterministic bugs can
+    // ignore the seed.
+    default void init(Grid grid, Point start, Point goal, long seed) {
+        init(grid, start, goal);
+    }
+
     Point nextStep();
 
+    // Steps until the bug finishes, gives up or maxSteps steps were taken;
+    // returns the steps taken. Same as calling nextStep in a loop, meant for
+    // headless runs that do not look at the intermediate positions.
+    default int runUntil(int maxSteps) {
+        int steps = 0;
+        while (steps < maxSteps && !hasFinished() && !hasGivenUp()) {
+            nextStep();
+            steps++;
+        }
+        return steps;
+    }
+
     boolean hasFinished();
 
     Point getCurrentPosition();
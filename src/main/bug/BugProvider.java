@@ -0,0 +1,13 @@
+package main.bug;
+
+// Service interface for plugging bug algorithms into the tester. Jars on the
+// classpath list their implementations in
+// META-INF/services/main.bug.BugProvider; BugRegistry picks them up by name.
+public interface BugProvider {
+
+    // Name used on the command line (-bug / -vs), e.g. "Bug2"
+    String getName();
+
+    // A new, uninitialised bug
+    BugAlgorithm create();
+}
@@ -0,0 +1,73 @@
+package main.bug;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+// Bug algorithms by name: the built-in Bug1 and Bug2, plus every BugProvider
+// found on the classpath. Names are matched ignoring case. The first
+// registration of a name wins: built-in bugs cannot be replaced, and of two
+// plugins with the same name the one earlier on the classpath is kept. Later
+// duplicates are skipped with a warning.
+public class BugRegistry {
+
+    private static final Map<String, Entry> BUGS = load();
+
+    private BugRegistry() {
+    }
+
+    public static boolean contains(String name) {
+        return BUGS.containsKey(name.toLowerCase());
+    }
+
+    public static Supplier<BugAlgorithm> byName(String name) {
+        Entry entry = BUGS.get(name.toLowerCase());
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown bug: " + name + " (known: " + names() + ")");
+        }
+        return entry.factory;
+    }
+
+    // Registered names, built-in bugs first
+    public static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (Entry entry : BUGS.values()) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    private static Map<String, Entry> load() {
+
+        Map<String, Entry> bugs = new LinkedHashMap<>();
+        register(bugs, "Bug2", Bug2::new, "built-in");
+        register(bugs, "Bug1", Bug1::new, "built-in");
+
+        for (BugProvider provider : ServiceLoader.load(BugProvider.class)) {
+            register(bugs, provider.getName(), provider::create, provider.getClass().getName());
+        }
+
+        return bugs;
+    }
+
+    // source names the registrant in the warning
+    private static void register(Map<String, Entry> bugs, String name, Supplier<BugAlgorithm> factory,
+                                 String source) {
+        if (bugs.putIfAbsent(name.toLowerCase(), new Entry(name, factory)) != null) {
+            System.out.println("Warning: bug name " + name + " is already registered, skipping " + source);
+        }
+    }
+
+    private static class Entry {
+        final String name;
+        final Supplier<BugAlgorithm> factory;
+
+        Entry(String name, Supplier<BugAlgorithm> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+}
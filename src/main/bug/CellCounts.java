@@ -0,0 +1,74 @@
+package main.bug;
+
+import java.util.Arrays;
+
+// Counts per cell index for the cells a walk touches, usually a small part of
+// the map: open addressing with linear probing, so memory and clearing follow
+// the walk rather than the map. Cells are never removed; a
+// count that drops back to 0 keeps its slot.
+final class CellCounts {
+
+    private int[] keys = new int[64];   // cell + 1, 0 = empty slot
+    private int[] counts = new int[64];
+    private int size = 0;
+
+    void clear() {
+
+        if (size == 0) return;
+
+        // A table left large by one long walk is dropped, not cleared over
+        // and over for the short walks after it
+        if (keys.length > 1024 && 8 * size < keys.length) {
+            keys = new int[64];
+            counts = new int[64];
+        } else {
+            Arrays.fill(keys, 0);
+            Arrays.fill(counts, 0);
+        }
+        size = 0;
+    }
+
+    // Adds one to the count of cell and returns the new count
+    int increment(int cell) {
+
+        if (2 * (size + 1) > keys.length) grow();
+
+        int slot = find(keys, cell);
+        if (keys[slot] == 0) {
+            keys[slot] = cell + 1;
+            size++;
+        }
+        return ++counts[slot];
+    }
+
+    // Removes one from the count of a cell that was incremented before
+    void decrement(int cell) {
+        counts[find(keys, cell)]--;
+    }
+
+    // Slot holding cell, or the empty slot where it belongs
+    private static int find(int[] keys, int cell) {
+        int mask = keys.length - 1;
+        int h = cell * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != 0 && keys[slot] != cell + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = find(keys, oldKeys[i] - 1);
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package main.bug;
+
+import java.awt.Point;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+// Visited cells of a bug, packed as int cell indices (y * width + x) in a
+// growable array. Truncating only moves the logical length, and the List
+// view builds Points on demand instead of storing them.
+public class Trajectory extends AbstractList<Point> {
+
+    private int[] cells = new int[64];
+    private int length = 0;
+    private int width = 1;
+    private int version = 0;
+
+    public void reset(int width) {
+        this.width = width;
+        length = 0;
+        version++;
+    }
+
+    // Changes whenever steps are dropped; appending keeps it, so a reader
+    // that saw the same version has a valid prefix of the current steps
+    public int getVersion() {
+        return version;
+    }
+
+    public void add(int x, int y) {
+        if (length == cells.length) {
+            cells = Arrays.copyOf(cells, length * 2);
+        }
+        cells[length++] = y * width + x;
+        modCount++;
+    }
+
+    // Drops every step from newLength on
+    public void truncate(int newLength) {
+        if (newLength < length) {
+            length = newLength;
+            version++;
+            modCount++;
+        }
+    }
+
+    public int getX(int index) {
+        checkIndex(index);
+        return cells[index] % width;
+    }
+
+    public int getY(int index) {
+        checkIndex(index);
+        return cells[index] / width;
+    }
+
+    @Override
+    public Point get(int index) {
+        checkIndex(index);
+        return new Point(cells[index] % width, cells[index] / width);
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+        }
+    }
+}
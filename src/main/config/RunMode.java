@@ -5,5 +5,8 @@ public enum RunMode {
     COMPARE,
     MARATHON,
     BUILD,
+    CONVERT,
+    CORPUS,
+    TOURNAMENT,
     UNKNOWN
 }
@@ -1,26 +1,53 @@
 package main.grid;
 
+import java.util.Arrays;
+
 public class Grid {
 
-    private boolean[][] obstacles;
-    private int width;
-    private int height;
+    // One bit per cell (1 = obstacle), row-major. Each row starts on a word
+    // boundary so a row can be scanned 64 cells at a time.
+    private final long[] obstacles;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+
+    // 8-connected component labels of the free cells, built on first use and
+    // dropped whenever an obstacle changes
+    private int[] components;
+    private int[] componentSizes;
+
+    // Incremented on every obstacle change, so results derived from the grid
+    // can tell whether they are still valid
+    private int version;
+
+    // Zobrist-style content hash: XOR of cellKey(cell) over the obstacle
+    // cells, updated on every change instead of rehashing the grid
+    private long obstacleHash;
 
     public Grid(int width, int height) {
         this.width = width;
         this.height = height;
-        obstacles = new boolean[width][height];
+        this.wordsPerRow = (width + 63) >>> 6;
+        obstacles = new long[wordsPerRow * height];
     }
 
     public void setObstacle(int x, int y, boolean value) {
         if (inBounds(x, y)) {
-            obstacles[x][y] = value;
+            int word = y * wordsPerRow + (x >>> 6);
+            long bit = 1L << x;
+            if (((obstacles[word] & bit) != 0) == value) return;
+
+            components = null;
+            componentSizes = null;
+            version++;
+            obstacles[word] ^= bit;
+            obstacleHash ^= cellKey(y * width + x);
         }
     }
 
     public boolean isObstacle(int x, int y) {
         if (!inBounds(x, y)) return true;
-        return obstacles[x][y];
+        return (obstacles[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
     }
 
     public boolean inBounds(int x, int y) {
@@ -29,4 +56,193 @@ public class Grid {
 
     public int getWidth() { return width; }
     public int getHeight() { return height; }
+    public int getWordsPerRow() { return wordsPerRow; }
+    public int getVersion() { return version; }
+
+    // Hash of the size and obstacles. Equal grids always hash the same,
+    // whatever order their obstacles were set in; different grids collide
+    // with probability about 2^-64.
+    public long contentHash() {
+        return obstacleHash ^ cellKey(~(((long) width << 32) | height));
+    }
+
+    // Random-looking 64-bit key of a cell (SplitMix64 finaliser), computed
+    // instead of stored so the grid needs no per-cell key table
+    private static long cellKey(long cell) {
+        long z = (cell + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Raw storage word: cells [64 * wordIndex, 64 * wordIndex + 63] of row y,
+    // bit i = cell 64 * wordIndex + i. Bits past the grid width are 0.
+    public long getRowWord(int y, int wordIndex) {
+        return obstacles[y * wordsPerRow + wordIndex];
+    }
+
+    // Overwrites a storage word (layout as in getRowWord). Bits past the grid
+    // width are dropped.
+    public void setRowWord(int y, int wordIndex, long word) {
+        int tail = width & 63;
+        if (wordIndex == wordsPerRow - 1 && tail != 0) {
+            word &= -1L >>> (64 - tail);
+        }
+
+        int index = y * wordsPerRow + wordIndex;
+        long changed = obstacles[index] ^ word;
+        if (changed == 0) return;
+        obstacles[index] = word;
+
+        int first = y * width + (wordIndex << 6);
+        while (changed != 0) {
+            obstacleHash ^= cellKey(first + Long.numberOfTrailingZeros(changed));
+            changed &= changed - 1;
+        }
+
+        components = null;
+        componentSizes = null;
+        version++;
+    }
+
+    // Obstacle bits of the 64 cells (x .. x + 63, y), bit i = cell x + i.
+    // Cells outside the grid read as obstacles, like isObstacle.
+    public long getObstacleBits(int x, int y) {
+        if (y < 0 || y >= height) return -1L;
+
+        long bits = 0;
+
+        if (x < 0) {
+            if (x <= -64) return -1L;
+            int shift = -x;
+            bits = (readRow(y, 0) << shift) | (-1L >>> (64 - shift));
+        } else {
+            bits = readRow(y, x);
+        }
+
+        // Mark cells past the right edge
+        int inside = width - x;
+        if (inside < 64) {
+            bits |= (inside <= 0) ? -1L : (-1L << inside);
+        }
+        return bits;
+    }
+
+    // 64 storage bits of row y starting at x >= 0 (0 past the end of the row)
+    private long readRow(int y, int x) {
+        int wordIndex = x >>> 6;
+        if (wordIndex >= wordsPerRow) return 0;
+
+        int base = y * wordsPerRow;
+        int offset = x & 63;
+        long bits = obstacles[base + wordIndex] >>> offset;
+        if (offset != 0 && wordIndex + 1 < wordsPerRow) {
+            bits |= obstacles[base + wordIndex + 1] << (64 - offset);
+        }
+        return bits;
+    }
+
+    // Obstacle mask of the 8 neighbours of (x, y). Out of bounds cells count
+    // as obstacles. Bit layout, relative to (x, y):
+    //   bit 0 (-1,-1)  bit 1 (0,-1)  bit 2 (+1,-1)
+    //   bit 3 (-1, 0)                bit 4 (+1, 0)
+    //   bit 5 (-1,+1)  bit 6 (0,+1)  bit 7 (+1,+1)
+    public int getNeighbourhoodMask(int x, int y) {
+        int above = (int) (getObstacleBits(x - 1, y - 1) & 0b111);
+        int row = (int) (getObstacleBits(x - 1, y) & 0b101);
+        int below = (int) (getObstacleBits(x - 1, y + 1) & 0b111);
+
+        return above
+                | (row & 1) << 3
+                | (row >>> 2) << 4
+                | below << 5;
+    }
+
+    // Component id (0 .. getComponentCount() - 1) of a free cell, or -1 for
+    // obstacles and out of bounds cells. Two free cells are connected by an
+    // 8-connected path iff they have the same id.
+    public int componentOf(int x, int y) {
+        if (isObstacle(x, y)) return -1;
+        if (components == null) labelComponents();
+        return components[y * width + x];
+    }
+
+    public boolean connected(int x1, int y1, int x2, int y2) {
+        int c = componentOf(x1, y1);
+        return c >= 0 && c == componentOf(x2, y2);
+    }
+
+    public int getComponentCount() {
+        if (components == null) labelComponents();
+        return componentSizes.length;
+    }
+
+    public int getComponentSize(int component) {
+        if (components == null) labelComponents();
+        return componentSizes[component];
+    }
+
+    // Scanline union-find: each free cell is joined with its already visited
+    // neighbours (W, NW, N, NE), then roots are renumbered densely.
+    private void labelComponents() {
+
+        int[] parent = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+
+                int cell = y * width + x;
+                if (isObstacle(x, y)) {
+                    parent[cell] = -1;
+                    continue;
+                }
+
+                parent[cell] = cell;
+                if (!isObstacle(x - 1, y))     union(parent, cell, cell - 1);
+                if (!isObstacle(x - 1, y - 1)) union(parent, cell, cell - width - 1);
+                if (!isObstacle(x, y - 1))     union(parent, cell, cell - width);
+                if (!isObstacle(x + 1, y - 1)) union(parent, cell, cell - width + 1);
+            }
+        }
+
+        // Parent links always point to a smaller index, so when a cell is
+        // reached its parent already holds the final label
+        int count = 0;
+        int[] sizes = new int[16];
+
+        for (int cell = 0; cell < parent.length; cell++) {
+
+            int p = parent[cell];
+            if (p < 0) continue;
+
+            int label;
+            if (p == cell) {
+                label = count++;
+                if (label == sizes.length) sizes = Arrays.copyOf(sizes, label * 2);
+            } else {
+                label = parent[p];
+            }
+
+            parent[cell] = label;
+            sizes[label]++;
+        }
+
+        components = parent;
+        componentSizes = Arrays.copyOf(sizes, count);
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra < rb) parent[rb] = ra;
+        else if (rb < ra) parent[ra] = rb;
+    }
+
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
 }
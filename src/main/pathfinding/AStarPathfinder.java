@@ -0,0 +1,137 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.*;
+
+import static main.pathfinding.GridMoves.*;
+
+// A* over the 8-connected grid. Diagonal moves cost the same as cardinal
+// ones, so the Chebyshev distance is the exact obstacle-free cost (octile
+// distance would overestimate and lose optimality).
+public class AStarPathfinder implements Pathfinder {
+
+    private static final ThreadLocal<Workspace> WORKSPACE =
+            ThreadLocal.withInitial(Workspace::new);
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
+
+        if (goalIndex < 0) return null; // no path
+
+        List<Point> path = new ArrayList<>();
+        int width = grid.getWidth();
+
+        for (int cell = goalIndex; cell >= 0; cell = ws.parent[cell]) {
+            path.add(new Point(cell % width, cell / width));
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
+
+        return (goalIndex < 0) ? -1 : ws.cost[goalIndex] + 1;
+    }
+
+    private static int search(Grid grid, Point start, Point goal, Workspace ws) {
+
+        if (!grid.inBounds(start.x, start.y) || !grid.inBounds(goal.x, goal.y)) return -1;
+
+        int width = grid.getWidth();
+        int startIndex = start.y * width + start.x;
+        int goalIndex = goal.y * width + goal.x;
+
+        ws.prepare(width * grid.getHeight());
+        int[] cost = ws.cost;
+        int[] parent = ws.parent;
+        int[] seen = ws.seen;
+        int[] closed = ws.closed;
+        int stamp = ws.stamp;
+        CellHeap open = ws.open;
+
+        seen[startIndex] = stamp;
+        cost[startIndex] = 0;
+        parent[startIndex] = -1;
+        int h0 = chebyshev(start.x, start.y, goal.x, goal.y);
+        open.push(CellHeap.key(h0, h0), startIndex);
+
+        while (!open.isEmpty()) {
+
+            int current = open.pop();
+
+            if (closed[current] == stamp) continue; // stale entry
+            closed[current] = stamp;
+
+            if (current == goalIndex) {
+                return current;
+            }
+
+            int cx = current % width;
+            int cy = current / width;
+            int blocked = grid.getNeighbourhoodMask(cx, cy);
+            int nextCost = cost[current] + 1;
+
+            for (int d = 0; d < 8; d++) {
+
+                if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+                int next = current + DY[d] * width + DX[d];
+                if (closed[next] == stamp) continue;
+                if (seen[next] == stamp && cost[next] <= nextCost) continue;
+
+                seen[next] = stamp;
+                cost[next] = nextCost;
+                parent[next] = current;
+
+                int h = chebyshev(cx + DX[d], cy + DY[d], goal.x, goal.y);
+                open.push(CellHeap.key(nextCost + h, h), next);
+            }
+        }
+
+        return -1;
+    }
+
+    // Per-thread buffers reused between searches, invalidated by stamp and
+    // sized by WorkspaceSizing
+    private static class Workspace {
+
+        int[] cost = new int[0];
+        int[] parent = new int[0];
+        int[] seen = new int[0];
+        int[] closed = new int[0];
+        int stamp = 0;
+        final CellHeap open = new CellHeap();
+
+        void prepare(int cells) {
+
+            int length = WorkspaceSizing.resize(cost.length, cells);
+
+            if (length >= 0) {
+                cost = new int[length];
+                parent = new int[length];
+                seen = new int[length];
+                closed = new int[length];
+                stamp = 0;
+            }
+
+            stamp++;
+            if (stamp == 0) { // wrapped around, stale stamps could match
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+
+            open.clear(cells);
+        }
+    }
+}
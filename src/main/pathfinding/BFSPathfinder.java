@@ -5,62 +5,189 @@ import main.grid.Grid;
 import java.awt.Point;
 import java.util.*;
 
-public class BFSPathfinder {
+import static main.pathfinding.GridMoves.*;
 
-    public static List<Point> findPath(Grid grid, Point start, Point goal) {
+public class BFSPathfinder implements Pathfinder {
 
-        Queue<Point> queue = new LinkedList<>();
-        Map<Point, Point> parent = new HashMap<>();
-        boolean[][] visited = new boolean[grid.getWidth()][grid.getHeight()];
-        
-        visited[start.x][start.y] = true;
-        queue.add(start);
+    private static final ThreadLocal<Workspace> WORKSPACE =
+            ThreadLocal.withInitial(Workspace::new);
 
-        int[][] directions = {
-            {1,0}, {-1,0}, {0,1}, {0,-1},     // cardinal
-            {1,1}, {1,-1}, {-1,1}, {-1,-1}   // diagonals
-        };
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
 
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
 
-        while (!queue.isEmpty()) {
+        if (goalIndex < 0) return null; // no path
 
-            Point current = queue.poll();
+        return reconstructPath(ws, grid.getWidth(), goalIndex);
+    }
+
+    // Reads the length from the distance field, without building the path
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
+
+        if (goalIndex < 0) return -1;
+
+        return ws.distance[goalIndex] + 1;
+    }
+
+    // Picks a goal uniformly among the cells reachable from start whose
+    // optimal path has at least minLength cells, using a single BFS. If no
+    // cell is that far, the farthest reachable cell is used. Returns null
+    // when nothing but the start itself is reachable.
+    public static GoalChoice pickGoal(Grid grid, Point start, int minLength, Random rand) {
+
+        Workspace ws = WORKSPACE.get();
+        search(grid, start, null, ws);
+
+        // BFS order is by distance, so eligible cells are a suffix of the queue
+        int reached = ws.reached;
+        if (reached <= 1) return null;
+
+        int first = reached - 1;
+        while (first > 1 && ws.distance[ws.queue[first - 1]] + 1 >= minLength) {
+            first--;
+        }
+
+        int cell = ws.queue[first + rand.nextInt(reached - first)];
+        int width = grid.getWidth();
+
+        return new GoalChoice(new Point(cell % width, cell / width), ws.distance[cell] + 1);
+    }
+
+    // Moves from source to every cell, -1 for cells that cannot be reached.
+    // Moves are symmetric, so this is also the distance from every cell to
+    // source.
+    static int[] distanceField(Grid grid, Point source) {
+
+        int[] field = new int[grid.getWidth() * grid.getHeight()];
+        Arrays.fill(field, -1);
+
+        Workspace ws = WORKSPACE.get();
+        search(grid, source, null, ws);
+
+        for (int i = 0; i < ws.reached; i++) {
+            int cell = ws.queue[i];
+            field[cell] = ws.distance[cell];
+        }
+        return field;
+    }
+
+    // Runs the BFS in the thread's workspace. Returns the goal cell index, or
+    // -1 if the goal is unreachable. With a null goal every reachable cell is
+    // expanded.
+    private static int search(Grid grid, Point start, Point goal, Workspace ws) {
+
+        int width = grid.getWidth();
+        ws.reached = 0;
+        if (!grid.inBounds(start.x, start.y)) return -1;
+
+        int goalIndex = (goal != null && grid.inBounds(goal.x, goal.y)) ? goal.y * width + goal.x : -1;
+        int startIndex = start.y * width + start.x;
+
+        ws.prepare(width * grid.getHeight());
+        int[] queue = ws.queue;
+        int[] parent = ws.parent;
+        int[] distance = ws.distance;
+        int[] visited = ws.visited;
+        int stamp = ws.stamp;
 
-            if (current.equals(goal)) {
-                return reconstructPath(parent, goal);
+        int head = 0;
+        int tail = 0;
+
+        visited[startIndex] = stamp;
+        parent[startIndex] = -1;
+        distance[startIndex] = 0;
+        queue[tail++] = startIndex;
+
+        while (head < tail) {
+
+            int current = queue[head++];
+
+            if (current == goalIndex) {
+                ws.reached = tail;
+                return current;
             }
 
-            for (int[] d : directions) {
+            int cx = current % width;
+            int cy = current / width;
+            int blocked = grid.getNeighbourhoodMask(cx, cy);
+            int nextDistance = distance[current] + 1;
 
-                int nx = current.x + d[0];
-                int ny = current.y + d[1];
+            for (int d = 0; d < 8; d++) {
 
-                Point next = new Point(nx, ny);
+                if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
 
-                if (!grid.inBounds(nx, ny)) continue;
-                if (grid.isObstacle(nx, ny)) continue;
-                if (visited[nx][ny]) continue;
+                int next = current + DY[d] * width + DX[d];
+                if (visited[next] == stamp) continue;
 
-                queue.add(next);
-                visited[nx][ny] = true;
-                parent.put(next, current);
+                visited[next] = stamp;
+                parent[next] = current;
+                distance[next] = nextDistance;
+                queue[tail++] = next;
             }
         }
 
-        return null; // no path
+        ws.reached = tail;
+        return -1;
     }
 
-    private static List<Point> reconstructPath(Map<Point, Point> parent, Point goal) {
+    private static List<Point> reconstructPath(Workspace ws, int width, int goalIndex) {
 
         List<Point> path = new ArrayList<>();
-        Point current = goal;
 
-        while (current != null) {
-            path.add(current);
-            current = parent.get(current);
+        for (int cell = goalIndex; cell >= 0; cell = ws.parent[cell]) {
+            path.add(new Point(cell % width, cell / width));
         }
 
         Collections.reverse(path);
         return path;
     }
+
+    public static class GoalChoice {
+        public final Point goal;
+        public final int optimalLength;
+
+        public GoalChoice(Point goal, int optimalLength) {
+            this.goal = goal;
+            this.optimalLength = optimalLength;
+        }
+    }
+
+    // Per-thread buffers reused between searches, sized by WorkspaceSizing.
+    // Every cell is enqueued at most once, so the queue never wraps.
+    // "visited" holds the stamp of the search that last reached a cell, so
+    // nothing has to be cleared.
+    private static class Workspace {
+
+        int[] queue = new int[0];
+        int[] parent = new int[0];
+        int[] distance = new int[0];
+        int[] visited = new int[0];
+        int stamp = 0;
+        int reached = 0; // cells enqueued by the last search
+
+        void prepare(int cells) {
+
+            int length = WorkspaceSizing.resize(queue.length, cells);
+
+            if (length >= 0) {
+                queue = new int[length];
+                parent = new int[length];
+                distance = new int[length];
+                visited = new int[length];
+                stamp = 0;
+            }
+
+            stamp++;
+            if (stamp == 0) { // wrapped around, stale stamps could match
+                Arrays.fill(visited, 0);
+                stamp = 1;
+            }
+        }
+    }
 }
@@ -0,0 +1,205 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+// BFS over whole bit-vectors instead of single cells. Frontier and visited
+// set use the Grid's packed row layout; each level computes
+//   next = spread(frontier) & free & ~visited
+// 64 cells per word, where spread ORs each frontier row with the rows above
+// and below and then with its own left and right shifts. Only the words next
+// to frontier words are scanned. There are no parent links, so findPath is
+// left to BFSPathfinder; findPathLength gives the same length.
+public class BitBFSPathfinder implements Pathfinder {
+
+    private static final ThreadLocal<Workspace> WORKSPACE =
+            ThreadLocal.withInitial(Workspace::new);
+
+    private final Pathfinder pathSearch = new BFSPathfinder();
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+        return pathSearch.findPath(grid, start, goal);
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        if (!grid.inBounds(start.x, start.y) || !grid.inBounds(goal.x, goal.y)) return -1;
+        if (start.equals(goal)) return 1;
+        if (grid.isObstacle(goal.x, goal.y)) return -1;
+
+        int height = grid.getHeight();
+        int wordsPerRow = grid.getWordsPerRow();
+        int tail = grid.getWidth() & 63;
+        long lastMask = (tail == 0) ? -1L : -1L >>> (64 - tail);
+
+        Workspace ws = WORKSPACE.get();
+        ws.prepare(height, wordsPerRow);
+        long[] frontier = ws.frontier;
+        long[] next = ws.next;
+        long[] visited = ws.visited;
+
+        // Words [first[y], last[y]] of row y hold its frontier cells (empty
+        // when first > last), so only the words around them are scanned
+        int[] first = ws.first;
+        int[] last = ws.last;
+        int[] nextFirst = ws.nextFirst;
+        int[] nextLast = ws.nextLast;
+
+        int startWord = start.y * wordsPerRow + (start.x >>> 6);
+        frontier[startWord] = 1L << start.x;
+        visited[startWord] = frontier[startWord];
+        first[start.y] = last[start.y] = start.x >>> 6;
+
+        int goalWord = goal.y * wordsPerRow + (goal.x >>> 6);
+        long goalBit = 1L << goal.x;
+
+        // Rows holding frontier cells
+        int top = start.y;
+        int bottom = start.y;
+
+        for (int level = 1; ; level++) {
+
+            int nextTop = Integer.MAX_VALUE;
+            int nextBottom = -1;
+
+            int from = Math.max(top - 1, 0);
+            int to = Math.min(bottom + 1, height - 1);
+
+            for (int y = from; y <= to; y++) {
+
+                nextFirst[y] = Integer.MAX_VALUE;
+                nextLast[y] = -1;
+
+                int lo = Integer.MAX_VALUE;
+                int hi = -1;
+                for (int r = Math.max(y - 1, top); r <= Math.min(y + 1, bottom); r++) {
+                    if (first[r] <= last[r]) {
+                        lo = Math.min(lo, first[r]);
+                        hi = Math.max(hi, last[r]);
+                    }
+                }
+                if (hi < 0) continue;
+
+                int base = y * wordsPerRow;
+                int above = (y > 0) ? base - wordsPerRow : -1;
+                int below = (y + 1 < height) ? base + wordsPerRow : -1;
+
+                int w = Math.max(lo - 1, 0);
+                int end = Math.min(hi + 1, wordsPerRow - 1);
+
+                // Frontier of rows y - 1 .. y + 1 OR-ed per word, then spread
+                // one cell left and right (carrying across word boundaries)
+                long prev = (w > 0) ? column(frontier, above, base, below, w - 1) : 0;
+                long cur = column(frontier, above, base, below, w);
+
+                for (; w <= end; w++) {
+
+                    long nextColumn = (w + 1 < wordsPerRow) ? column(frontier, above, base, below, w + 1) : 0;
+                    long spread = cur | (cur << 1) | (cur >>> 1) | (prev >>> 63) | (nextColumn << 63);
+
+                    long valid = (w == wordsPerRow - 1) ? lastMask : -1L;
+                    long word = spread & ~grid.getRowWord(y, w) & ~visited[base + w] & valid;
+
+                    if (word != 0) {
+                        next[base + w] = word;
+                        visited[base + w] |= word;
+                        nextFirst[y] = Math.min(nextFirst[y], w);
+                        nextLast[y] = w;
+                    }
+
+                    prev = cur;
+                    cur = nextColumn;
+                }
+
+                if (nextLast[y] >= 0) {
+                    nextTop = Math.min(nextTop, y);
+                    nextBottom = y;
+                }
+            }
+
+            if ((next[goalWord] & goalBit) != 0) return level + 1;
+            if (nextBottom < 0) return -1;
+
+            // Clear the old frontier so its buffer can take the next level
+            for (int y = top; y <= bottom; y++) {
+                if (first[y] <= last[y]) {
+                    Arrays.fill(frontier, y * wordsPerRow + first[y], y * wordsPerRow + last[y] + 1, 0L);
+                }
+                first[y] = Integer.MAX_VALUE;
+                last[y] = -1;
+            }
+
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+
+            int[] swapRows = first;
+            first = nextFirst;
+            nextFirst = swapRows;
+            swapRows = last;
+            last = nextLast;
+            nextLast = swapRows;
+
+            top = nextTop;
+            bottom = nextBottom;
+        }
+    }
+
+    // Frontier bits of word w in the row starting at base and in the rows
+    // above and below (-1 when outside the grid)
+    private static long column(long[] frontier, int above, int base, int below, int w) {
+        long bits = frontier[base + w];
+        if (above >= 0) bits |= frontier[above + w];
+        if (below >= 0) bits |= frontier[below + w];
+        return bits;
+    }
+
+    // Per-thread bitsets and row ranges, reset by prepare for each search and
+    // sized by WorkspaceSizing
+    private static class Workspace {
+
+        long[] frontier = new long[0];
+        long[] next = new long[0];
+        long[] visited = new long[0];
+        int[] first = new int[0];
+        int[] last = new int[0];
+        int[] nextFirst = new int[0];
+        int[] nextLast = new int[0];
+
+        void prepare(int rows, int wordsPerRow) {
+
+            int words = rows * wordsPerRow;
+
+            int length = WorkspaceSizing.resize(visited.length, words);
+
+            if (length >= 0) {
+                frontier = new long[length];
+                next = new long[length];
+                visited = new long[length];
+            } else {
+                Arrays.fill(frontier, 0, words, 0L);
+                Arrays.fill(next, 0, words, 0L);
+                Arrays.fill(visited, 0, words, 0L);
+            }
+
+            length = WorkspaceSizing.resize(first.length, rows);
+
+            if (length >= 0) {
+                first = new int[length];
+                last = new int[length];
+                nextFirst = new int[length];
+                nextLast = new int[length];
+            }
+
+            Arrays.fill(first, 0, rows, Integer.MAX_VALUE);
+            Arrays.fill(last, 0, rows, -1);
+            Arrays.fill(nextFirst, 0, rows, Integer.MAX_VALUE);
+            Arrays.fill(nextLast, 0, rows, -1);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.List;
+
+// Looks paths up in a PathCache before asking the wrapped pathfinder. Both
+// the path and "no path" answers are cached. Lengths are cached on their own:
+// a length miss asks the wrapped findPathLength, so pathfinders with a
+// cheaper length-only search keep it.
+public class CachingPathfinder implements Pathfinder {
+
+    private final Pathfinder pathfinder;
+    private final PathCache cache;
+
+    public CachingPathfinder(Pathfinder pathfinder, PathCache cache) {
+        this.pathfinder = pathfinder;
+        this.cache = cache;
+    }
+
+    public PathCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+
+        int[] cells = cache.lookupPath(grid, start, goal);
+        if (cells != null) {
+            return PathCache.isNoPath(cells) ? null : PathCache.toPath(cells, grid.getWidth());
+        }
+
+        List<Point> path = pathfinder.findPath(grid, start, goal);
+        cache.storePath(grid, start, goal, path);
+        return path;
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        int length = cache.lookupLength(grid, start, goal);
+        if (length != PathCache.UNKNOWN) return length;
+
+        length = pathfinder.findPathLength(grid, start, goal);
+        cache.storeLength(grid, start, goal, length);
+        return length;
+    }
+}
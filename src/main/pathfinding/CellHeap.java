@@ -0,0 +1,75 @@
+package main.pathfinding;
+
+import java.util.Arrays;
+
+// Binary min-heap of cell indices ordered by a long key. Entries are never
+// decreased in place: callers push again and skip stale pops.
+final class CellHeap {
+
+    private long[] keys = new long[64];
+    private int[] cells = new int[64];
+    private int size = 0;
+
+    // Empties the heap for a search over the given number of cells, dropping
+    // storage that a much larger earlier search left behind
+    void clear(int cells) {
+        size = 0;
+        if (WorkspaceSizing.oversized(keys.length, cells)) {
+            keys = new long[64];
+            this.cells = new int[64];
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(long key, int cell) {
+
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            cells[i] = cells[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+    }
+
+    // Removes the entry with the smallest key and returns its cell
+    int pop() {
+
+        int top = cells[0];
+        size--;
+
+        long key = keys[size];
+        int cell = cells[size];
+
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[i] = keys[child];
+            cells[i] = cells[child];
+            i = child;
+        }
+        keys[i] = key;
+        cells[i] = cell;
+
+        return top;
+    }
+
+    // Orders by f, then by h so that deeper nodes win ties
+    static long key(int f, int h) {
+        return ((long) f << 32) | h;
+    }
+}
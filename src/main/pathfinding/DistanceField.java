@@ -0,0 +1,117 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import static main.pathfinding.GridMoves.*;
+
+// Moves from every cell to one goal, from a single BFS rooted at the goal.
+// Answers the optimal length from any start in O(1) and walks the path down
+// the distance gradient, without searching again. Valid for the grid
+// version it was computed on. Like BFSPathfinder, a start on an obstacle
+// may step out onto a free neighbour, so both always give the same length.
+public class DistanceField {
+
+    private final Grid grid;
+    private final int version;
+    private final Point goal;
+    private final int[] distance; // moves to the goal, -1 = unreachable
+
+    private DistanceField(Grid grid, Point goal, int[] distance) {
+        this.grid = grid;
+        this.version = grid.getVersion();
+        this.goal = new Point(goal);
+        this.distance = distance;
+    }
+
+    public static DistanceField compute(Grid grid, Point goal) {
+        return new DistanceField(grid, goal, BFSPathfinder.distanceField(grid, goal));
+    }
+
+    public Point getGoal() {
+        return new Point(goal);
+    }
+
+    // False once an obstacle of the grid changed
+    public boolean isCurrent() {
+        return grid.getVersion() == version;
+    }
+
+    // Size of the field, for cache budgets
+    public int cells() {
+        return distance.length;
+    }
+
+    // Cells on an optimal path from (x, y) to the goal (both included), or -1
+    public int optimalLength(int x, int y) {
+        if (!grid.inBounds(x, y)) return -1;
+        int d = movesToGoal(x, y);
+        return d < 0 ? -1 : d + 1;
+    }
+
+    public int optimalLength(Point start) {
+        return optimalLength(start.x, start.y);
+    }
+
+    // Optimal path from start to the goal (both included), or null. Each step
+    // goes to the first neighbour (in GridMoves order) one move closer.
+    public List<Point> pathFrom(Point start) {
+
+        int length = optimalLength(start);
+        if (length < 0) return null;
+
+        int width = grid.getWidth();
+        List<Point> path = new ArrayList<>(length);
+
+        int cell = start.y * width + start.x;
+        path.add(new Point(start));
+
+        for (int remaining = length - 1; remaining > 0; remaining--) {
+
+            int cx = cell % width;
+            int cy = cell / width;
+            int blocked = grid.getNeighbourhoodMask(cx, cy);
+
+            for (int d = 0; d < 8; d++) {
+
+                if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+                int next = cell + DY[d] * width + DX[d];
+                if (distance[next] == remaining - 1) {
+                    cell = next;
+                    break;
+                }
+            }
+
+            path.add(new Point(cell % width, cell / width));
+        }
+
+        return path;
+    }
+
+    // Obstacles are never reached from the goal, so an obstacle start takes
+    // one move to its closest free neighbour (the move BFSPathfinder would
+    // make out of it) and goes on from there
+    private int movesToGoal(int x, int y) {
+
+        int width = grid.getWidth();
+        int cell = y * width + x;
+        if (!grid.isObstacle(x, y)) return distance[cell];
+
+        int best = -1;
+        int blocked = grid.getNeighbourhoodMask(x, y);
+
+        for (int d = 0; d < 8; d++) {
+
+            if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+            int next = distance[cell + DY[d] * width + DX[d]];
+            if (next >= 0 && (best < 0 || next + 1 < best)) best = next + 1;
+        }
+
+        return best;
+    }
+}
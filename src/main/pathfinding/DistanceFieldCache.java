@@ -0,0 +1,101 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRU of distance fields keyed by grid instance, grid version and goal,
+// bounded by the total cells of the fields it holds (4 bytes each) rather
+// than by their number, since one field of a 10k x 10k map alone is 400 MB.
+// A field larger than the whole budget is returned without being kept.
+// Fields of a grid that changed are never hit again and age out.
+// Thread safe; a field missing in two threads at once may be computed twice.
+public class DistanceFieldCache {
+
+    private final long maxCells;
+    private final LinkedHashMap<Key, DistanceField> fields = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cells; // held by the fields in the map
+    private long hits;
+    private long misses;
+
+    public DistanceFieldCache(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public DistanceField get(Grid grid, Point goal) {
+
+        Key key = new Key(grid, goal);
+
+        synchronized (this) {
+            DistanceField field = fields.get(key);
+            if (field != null) {
+                hits++;
+                return field;
+            }
+            misses++;
+        }
+
+        // Searched outside the lock so other goals are not held up
+        DistanceField field = DistanceField.compute(grid, goal);
+
+        if (field.cells() <= maxCells) {
+            synchronized (this) {
+                put(key, field);
+            }
+        }
+        return field;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    // Cells held by the cached fields
+    public synchronized long getCells() { return cells; }
+
+    private void put(Key key, DistanceField field) {
+
+        DistanceField old = fields.put(key, field);
+        cells += field.cells() - (old == null ? 0 : old.cells());
+
+        // Least recently used first
+        Iterator<DistanceField> it = fields.values().iterator();
+        while (cells > maxCells) {
+            cells -= it.next().cells();
+            it.remove();
+        }
+    }
+
+    private static final class Key {
+
+        final Grid grid; // compared by identity
+        final int version;
+        final int goalX;
+        final int goalY;
+
+        Key(Grid grid, Point goal) {
+            this.grid = grid;
+            this.version = grid.getVersion();
+            this.goalX = goal.x;
+            this.goalY = goal.y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return grid == k.grid && version == k.version && goalX == k.goalX && goalY == k.goalY;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = System.identityHashCode(grid);
+            h = 31 * h + version;
+            h = 31 * h + goalX;
+            return 31 * h + goalY;
+        }
+    }
+}
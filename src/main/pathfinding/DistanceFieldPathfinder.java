@@ -0,0 +1,50 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+// Answers from cached goal-rooted distance fields: the first query for a
+// goal costs one BFS, every further start against the same goal (on the same,
+// unchanged grid) is O(1) for the length and O(length) for the path.
+public class DistanceFieldPathfinder implements Pathfinder {
+
+    // 32M cells, 128 MB of fields
+    private static final long DEFAULT_MAX_CELLS = 1L << 25;
+
+    private final DistanceFieldCache cache;
+
+    public DistanceFieldPathfinder() {
+        this(new DistanceFieldCache(DEFAULT_MAX_CELLS));
+    }
+
+    public DistanceFieldPathfinder(DistanceFieldCache cache) {
+        this.cache = cache;
+    }
+
+    public DistanceFieldCache getCache() {
+        return cache;
+    }
+
+    // As in BFSPathfinder, start == goal is a path of one cell, even on an
+    // obstacle
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+        if (start.equals(goal) && grid.inBounds(start.x, start.y)) {
+            List<Point> path = new ArrayList<>();
+            path.add(new Point(start));
+            return path;
+        }
+        if (!grid.inBounds(goal.x, goal.y) || grid.isObstacle(goal.x, goal.y)) return null;
+        return cache.get(grid, goal).pathFrom(start);
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+        if (start.equals(goal) && grid.inBounds(start.x, start.y)) return 1;
+        if (!grid.inBounds(goal.x, goal.y) || grid.isObstacle(goal.x, goal.y)) return -1;
+        return cache.get(grid, goal).optimalLength(start);
+    }
+}
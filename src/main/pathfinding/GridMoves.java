@@ -0,0 +1,18 @@
+package main.pathfinding;
+
+// The 8 moves shared by the pathfinders: cardinal, then diagonals
+final class GridMoves {
+
+    static final int[] DX = { 1, -1, 0,  0, 1,  1, -1, -1 };
+    static final int[] DY = { 0,  0, 1, -1, 1, -1,  1, -1 };
+
+    // Bit of each move in Grid.getNeighbourhoodMask
+    static final int[] MASK_BIT = { 4, 3, 6, 1, 7, 2, 5, 0 };
+
+    private GridMoves() {}
+
+    // Lower bound on the number of moves between two cells
+    static int chebyshev(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+}
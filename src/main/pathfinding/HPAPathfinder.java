@@ -0,0 +1,523 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static main.pathfinding.GridMoves.*;
+
+// Hierarchical pathfinding for large grids, exact. The grid is cut into
+// square clusters; the abstract graph has one node per entrance cell (a free
+// cell with a free neighbour in another cluster) and two kinds of edges:
+//   - inside a cluster, between any two of its entrances, weighted by their
+//     BFS distance without leaving the cluster
+//   - between neighbouring entrances of different clusters, weight 1
+// Every path splits into same-cluster segments that start and end at
+// entrances (or at start / goal), so the shortest abstract path is exactly as
+// long as the BFS one. Queries connect start and goal to the entrances of
+// their clusters and run A* (Chebyshev heuristic) over the abstract graph;
+// findPath then refines each in-cluster edge with a BFS inside the cluster.
+//
+// The abstraction is built once per grid (and rebuilt after the grid
+// changes). Building it costs several BFS runs over the whole map (6-10 s on
+// a 2000 x 2000 map), so it only pays off when many queries hit the same
+// map; with one query per map, as in marathon and corpus runs, plain BFS is
+// much faster. HPABenchmark measures both costs. An abstraction takes an int
+// per cell plus entrances^2 bytes per cluster: up to about 18 bytes per cell
+// with the default cluster size. Abstractions are kept in an LRU bounded by
+// their bytes; the most recent one is kept even when it alone is over the
+// budget, so repeated queries on one huge map still reuse it.
+public class HPAPathfinder implements Pathfinder {
+
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // Abstractions kept for reuse, 256 MB
+    public static final long DEFAULT_MAX_BYTES = 1L << 28;
+
+    // In-cluster distances are stored in a byte. A cluster has at most 256
+    // cells and a shortest path through all of them would need them all free,
+    // in which case no distance exceeds 15, so 255 is never a real distance.
+    private static final int MAX_CLUSTER_SIZE = 16;
+    private static final int UNREACHABLE = 0xFF;
+
+    private static final ThreadLocal<Workspace> WORKSPACE =
+            ThreadLocal.withInitial(Workspace::new);
+
+    private final int clusterSize;
+    private final long maxBytes;
+    private final Pathfinder fallback = new BFSPathfinder();
+
+    // By grid identity, least recently used first
+    private final LinkedHashMap<Grid, Abstraction> abstractions = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes; // held by the abstractions in the map
+
+    public HPAPathfinder() {
+        this(DEFAULT_CLUSTER_SIZE, DEFAULT_MAX_BYTES);
+    }
+
+    public HPAPathfinder(int clusterSize) {
+        this(clusterSize, DEFAULT_MAX_BYTES);
+    }
+
+    public HPAPathfinder(int clusterSize, long maxBytes) {
+        if (clusterSize < 2 || clusterSize > MAX_CLUSTER_SIZE) {
+            throw new IllegalArgumentException("Cluster size must be 2.." + MAX_CLUSTER_SIZE + ": " + clusterSize);
+        }
+        this.clusterSize = clusterSize;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+
+        // BFS may walk out of an obstacle start cell; leave that case to it
+        if (grid.isObstacle(start.x, start.y)) return fallback.findPath(grid, start, goal);
+
+        Workspace ws = WORKSPACE.get();
+        Abstraction a = abstraction(grid);
+        if (search(a, start, goal, ws) < 0) return null;
+
+        return a.refine(start, goal, ws);
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        if (grid.isObstacle(start.x, start.y)) return fallback.findPathLength(grid, start, goal);
+
+        int distance = search(abstraction(grid), start, goal, WORKSPACE.get());
+        return distance < 0 ? -1 : distance + 1;
+    }
+
+    private synchronized Abstraction abstraction(Grid grid) {
+
+        Abstraction a = abstractions.get(grid);
+        if (a != null && a.version == grid.getVersion()) return a;
+
+        a = new Abstraction(grid, clusterSize);
+        Abstraction old = abstractions.put(grid, a);
+        bytes += a.bytes() - (old == null ? 0 : old.bytes());
+
+        // Least recently used first, never the one just built
+        Iterator<Abstraction> it = abstractions.values().iterator();
+        while (bytes > maxBytes && abstractions.size() > 1) {
+            bytes -= it.next().bytes();
+            it.remove();
+        }
+        return a;
+    }
+
+    // Moves from start to goal, or -1. Leaves the abstract path in ws.
+    private static int search(Abstraction a, Point start, Point goal, Workspace ws) {
+
+        Grid grid = a.grid;
+        ws.pathStart = -1;
+
+        if (!grid.inBounds(start.x, start.y) || !grid.inBounds(goal.x, goal.y)) return -1;
+        if (start.equals(goal)) return 0;
+        if (!grid.connected(start.x, start.y, goal.x, goal.y)) return -1;
+
+        int width = grid.getWidth();
+        int startCell = start.y * width + start.x;
+        int goalCell = goal.y * width + goal.x;
+        int startCluster = a.clusterOf(start.x, start.y);
+        int goalCluster = a.clusterOf(goal.x, goal.y);
+
+        ws.prepare(a.nodeCount + 1, a.clusterSize);
+        int target = a.nodeCount; // virtual node: the goal itself
+
+        int[] g = ws.cost;
+        int[] parent = ws.parent;
+        int[] seen = ws.seen;
+        int[] closed = ws.closed;
+        int stamp = ws.stamp;
+        CellHeap open = ws.open;
+
+        // Goal side: distance from each entrance of the goal cluster to goal
+        a.clusterMasks(goalCluster, ws.localMasks);
+        a.clusterSearch(goalCell, ws.localMasks, ws.goalDistance, ws.localParent, ws.localQueue);
+
+        // Start side: seed the entrances of the start cluster, and the goal
+        // directly when both are in the same cluster
+        a.clusterMasks(startCluster, ws.localMasks);
+        a.clusterSearch(startCell, ws.localMasks, ws.localDistance, ws.localParent, ws.localQueue);
+
+        for (int node = a.firstNode[startCluster]; node < a.firstNode[startCluster + 1]; node++) {
+            int d = ws.localDistance[a.localIndex(a.nodeCell[node])];
+            if (d >= 0) relax(a, ws, node, -1, d, goal);
+        }
+
+        if (startCluster == goalCluster) {
+            int d = ws.localDistance[a.localIndex(goalCell)];
+            if (d >= 0) relax(a, ws, target, -1, d, goal);
+        }
+
+        while (!open.isEmpty()) {
+
+            int node = open.pop();
+
+            if (closed[node] == stamp) continue; // stale entry
+            closed[node] = stamp;
+
+            if (node == target) {
+                ws.pathStart = parent[target];
+                return g[target];
+            }
+
+            int cell = a.nodeCell[node];
+            int cx = cell % width;
+            int cy = cell / width;
+            int cluster = a.clusterOf(cx, cy);
+            int cost = g[node];
+
+            // Into the goal
+            if (cluster == goalCluster) {
+                int d = ws.goalDistance[a.localIndex(cell)];
+                if (d >= 0) relax(a, ws, target, node, cost + d, goal);
+            }
+
+            // Across the cluster
+            int first = a.firstNode[cluster];
+            int entrances = a.firstNode[cluster + 1] - first;
+            long row = a.distanceOffset[cluster] + (long) (node - first) * entrances;
+
+            for (int i = 0; i < entrances; i++) {
+                int d = a.distances[(int) (row + i)] & 0xFF;
+                if (d == UNREACHABLE || i == node - first) continue;
+                relax(a, ws, first + i, node, cost + d, goal);
+            }
+
+            // Into neighbouring clusters
+            int blocked = grid.getNeighbourhoodMask(cx, cy);
+            for (int d = 0; d < 8; d++) {
+
+                if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (a.clusterOf(nx, ny) == cluster) continue;
+
+                relax(a, ws, a.nodeIndex[ny * width + nx], node, cost + 1, goal);
+            }
+        }
+
+        return -1;
+    }
+
+    private static void relax(Abstraction a, Workspace ws, int node, int from, int cost, Point goal) {
+
+        int stamp = ws.stamp;
+        if (ws.closed[node] == stamp) return;
+        if (ws.seen[node] == stamp && ws.cost[node] <= cost) return;
+
+        ws.seen[node] = stamp;
+        ws.cost[node] = cost;
+        ws.parent[node] = from;
+
+        int h = 0;
+        if (node < a.nodeCount) {
+            int cell = a.nodeCell[node];
+            int width = a.grid.getWidth();
+            h = chebyshev(cell % width, cell / width, goal.x, goal.y);
+        }
+        ws.open.push(CellHeap.key(cost + h, h), node);
+    }
+
+    // Clusters, entrance nodes and in-cluster entrance distances of a grid
+    private static class Abstraction {
+
+        final Grid grid;
+        final int version;
+        final int clusterSize;
+        final int clustersPerRow;
+
+        final int nodeCount;
+        final int[] nodeCell;       // cell of each entrance node
+        final int[] nodeIndex;      // node of each cell, -1 if not an entrance
+        final int[] firstNode;      // nodes of cluster k: firstNode[k] .. firstNode[k + 1] - 1
+        final long[] distanceOffset; // start of cluster k's matrix in distances
+        final byte[] distances;     // per cluster, row-major entrance x entrance
+
+        Abstraction(Grid grid, int clusterSize) {
+
+            this.grid = grid;
+            this.version = grid.getVersion();
+            this.clusterSize = clusterSize;
+
+            // Label components now, so concurrent queries only read them
+            grid.getComponentCount();
+
+            int width = grid.getWidth();
+            int height = grid.getHeight();
+            this.clustersPerRow = (width + clusterSize - 1) / clusterSize;
+            int clusterRows = (height + clusterSize - 1) / clusterSize;
+            int clusters = clustersPerRow * clusterRows;
+
+            // Entrances, numbered cluster by cluster
+            nodeIndex = new int[width * height];
+            Arrays.fill(nodeIndex, -1);
+            firstNode = new int[clusters + 1];
+
+            int[] cells = new int[64];
+            int count = 0;
+
+            for (int k = 0; k < clusters; k++) {
+
+                firstNode[k] = count;
+                int x0 = (k % clustersPerRow) * clusterSize;
+                int y0 = (k / clustersPerRow) * clusterSize;
+                int x1 = Math.min(x0 + clusterSize, width);
+                int y1 = Math.min(y0 + clusterSize, height);
+
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+
+                        boolean border = x == x0 || y == y0 || x == x1 - 1 || y == y1 - 1;
+                        if (!border || !isEntrance(x, y, k)) continue;
+
+                        if (count == cells.length) cells = Arrays.copyOf(cells, count * 2);
+                        cells[count] = y * width + x;
+                        nodeIndex[y * width + x] = count;
+                        count++;
+                    }
+                }
+            }
+
+            firstNode[clusters] = count;
+            nodeCount = count;
+            nodeCell = Arrays.copyOf(cells, count);
+
+            // In-cluster distances, one bounded BFS per entrance
+            distanceOffset = new long[clusters];
+            long total = 0;
+            for (int k = 0; k < clusters; k++) {
+                distanceOffset[k] = total;
+                long entrances = firstNode[k + 1] - firstNode[k];
+                total += entrances * entrances;
+            }
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Grid too large for the hierarchical pathfinder");
+            }
+            distances = new byte[(int) total];
+
+            int local = clusterSize * clusterSize;
+            int[] dist = new int[local];
+            int[] parent = new int[local];
+            int[] queue = new int[local];
+            int[] masks = new int[local];
+
+            for (int k = 0; k < clusters; k++) {
+
+                int first = firstNode[k];
+                int entrances = firstNode[k + 1] - first;
+
+                if (entrances == 0) continue;
+                clusterMasks(k, masks);
+
+                for (int i = 0; i < entrances; i++) {
+
+                    clusterSearch(nodeCell[first + i], masks, dist, parent, queue);
+
+                    int row = (int) distanceOffset[k] + i * entrances;
+                    for (int j = 0; j < entrances; j++) {
+                        int d = dist[localIndex(nodeCell[first + j])];
+                        distances[row + j] = (byte) (d < 0 ? UNREACHABLE : d);
+                    }
+                }
+            }
+        }
+
+        // Approximate heap size, for the cache budget
+        long bytes() {
+            return 4L * (nodeCell.length + nodeIndex.length + firstNode.length)
+                    + 8L * distanceOffset.length + distances.length;
+        }
+
+        private boolean isEntrance(int x, int y, int cluster) {
+
+            if (grid.isObstacle(x, y)) return false;
+
+            int blocked = grid.getNeighbourhoodMask(x, y);
+            for (int d = 0; d < 8; d++) {
+                if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+                if (clusterOf(x + DX[d], y + DY[d]) != cluster) return true;
+            }
+            return false;
+        }
+
+        int clusterOf(int x, int y) {
+            return (y / clusterSize) * clustersPerRow + x / clusterSize;
+        }
+
+        // Index of a cell inside its cluster's clusterSize x clusterSize box
+        int localIndex(int cell) {
+            int width = grid.getWidth();
+            return ((cell / width) % clusterSize) * clusterSize + (cell % width) % clusterSize;
+        }
+
+        // Neighbourhood masks (as Grid.getNeighbourhoodMask) of the cells of a
+        // cluster by local index, with neighbours outside the cluster blocked
+        // too. Computed once per cluster and shared by its searches.
+        void clusterMasks(int cluster, int[] masks) {
+
+            int x0 = (cluster % clustersPerRow) * clusterSize;
+            int y0 = (cluster / clustersPerRow) * clusterSize;
+            int x1 = Math.min(x0 + clusterSize, grid.getWidth());
+            int y1 = Math.min(y0 + clusterSize, grid.getHeight());
+
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+
+                    int mask = grid.getNeighbourhoodMask(x, y);
+                    if (x == x0)     mask |= 0b00101001; // W column
+                    if (x == x1 - 1) mask |= 0b10010100; // E column
+                    if (y == y0)     mask |= 0b00000111; // N row
+                    if (y == y1 - 1) mask |= 0b11100000; // S row
+
+                    masks[(y - y0) * clusterSize + (x - x0)] = mask;
+                }
+            }
+        }
+
+        // BFS from cell that never leaves its cluster, using the masks of
+        // clusterMasks. dist gets the moves to each local index (-1 if
+        // unreached), parent the previous local index.
+        void clusterSearch(int cell, int[] masks, int[] dist, int[] parent, int[] queue) {
+
+            Arrays.fill(dist, 0, clusterSize * clusterSize, -1);
+
+            int startLocal = localIndex(cell);
+            dist[startLocal] = 0;
+            parent[startLocal] = -1;
+            queue[0] = startLocal;
+
+            int head = 0;
+            int tail = 1;
+
+            while (head < tail) {
+
+                int current = queue[head++];
+                int blocked = masks[current];
+
+                for (int d = 0; d < 8; d++) {
+
+                    if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+                    int next = current + DY[d] * clusterSize + DX[d];
+                    if (dist[next] >= 0) continue;
+
+                    dist[next] = dist[current] + 1;
+                    parent[next] = current;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // Cells of the path found by the last search in ws: abstract nodes
+        // from the goal back to the start cluster, each in-cluster hop
+        // replaced by its BFS path inside the cluster
+        List<Point> refine(Point start, Point goal, Workspace ws) {
+
+            int width = grid.getWidth();
+
+            // Abstract cells, goal first
+            List<Integer> hops = new ArrayList<>();
+            hops.add(goal.y * width + goal.x);
+            for (int node = ws.pathStart; node >= 0; node = ws.parent[node]) {
+                hops.add(nodeCell[node]);
+            }
+            hops.add(start.y * width + start.x);
+
+            List<Point> path = new ArrayList<>();
+            path.add(new Point(start));
+
+            for (int i = hops.size() - 1; i > 0; i--) {
+                appendSegment(hops.get(i), hops.get(i - 1), path, ws);
+            }
+            return path;
+        }
+
+        // Adds the cells after from up to to: a single move between clusters,
+        // otherwise the BFS path inside their cluster
+        private void appendSegment(int from, int to, List<Point> path, Workspace ws) {
+
+            if (from == to) return;
+
+            int width = grid.getWidth();
+            int cluster = clusterOf(from % width, from / width);
+
+            if (clusterOf(to % width, to / width) != cluster) {
+                path.add(new Point(to % width, to / width));
+                return;
+            }
+
+            clusterMasks(cluster, ws.localMasks);
+            clusterSearch(to, ws.localMasks, ws.localDistance, ws.localParent, ws.localQueue);
+
+            // Walking the parents from "from" leads to "to", so the segment
+            // comes out in path order
+            int x0 = (cluster % clustersPerRow) * clusterSize;
+            int y0 = (cluster / clustersPerRow) * clusterSize;
+
+            for (int local = ws.localParent[localIndex(from)]; local >= 0; local = ws.localParent[local]) {
+                path.add(new Point(x0 + local % clusterSize, y0 + local / clusterSize));
+            }
+        }
+    }
+
+    // Per-thread buffers reused between searches, invalidated by stamp and
+    // sized by WorkspaceSizing
+    private static class Workspace {
+
+        int[] cost = new int[0];
+        int[] parent = new int[0];
+        int[] seen = new int[0];
+        int[] closed = new int[0];
+        int stamp = 0;
+        final CellHeap open = new CellHeap();
+
+        int[] localDistance = new int[0];
+        int[] goalDistance = new int[0];
+        int[] localParent = new int[0];
+        int[] localQueue = new int[0];
+        int[] localMasks = new int[0];
+
+        int pathStart; // last abstract node before the goal, -1 if none
+
+        void prepare(int nodes, int clusterSize) {
+
+            int length = WorkspaceSizing.resize(cost.length, nodes);
+
+            if (length >= 0) {
+                cost = new int[length];
+                parent = new int[length];
+                seen = new int[length];
+                closed = new int[length];
+                stamp = 0;
+            }
+
+            int local = clusterSize * clusterSize;
+            if (localDistance.length < local) {
+                localDistance = new int[local];
+                goalDistance = new int[local];
+                localParent = new int[local];
+                localQueue = new int[local];
+                localMasks = new int[local];
+            }
+
+            stamp++;
+            if (stamp == 0) { // wrapped around, stale stamps could match
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+
+            open.clear(nodes);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.*;
+
+import static main.pathfinding.GridMoves.*;
+
+// Jump Point Search: A* that only expands jump points, skipping the cells
+// of straight and diagonal runs that cannot branch. Diagonal moves may cut
+// corners (same moves as BFSPathfinder), and every move costs one step.
+public class JPSPathfinder implements Pathfinder {
+
+    private static final ThreadLocal<Workspace> WORKSPACE =
+            ThreadLocal.withInitial(Workspace::new);
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
+
+        if (goalIndex < 0) return null; // no path
+
+        // Jump points are joined by straight or diagonal runs: fill them in
+        List<Point> path = new ArrayList<>();
+        int width = grid.getWidth();
+
+        for (int cell = goalIndex; ws.parent[cell] >= 0; cell = ws.parent[cell]) {
+            int x = cell % width;
+            int y = cell / width;
+            int px = ws.parent[cell] % width;
+            int py = ws.parent[cell] / width;
+            int dx = Integer.compare(px, x);
+            int dy = Integer.compare(py, y);
+
+            while (x != px || y != py) {
+                path.add(new Point(x, y));
+                x += dx;
+                y += dy;
+            }
+        }
+        path.add(new Point(start));
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        Workspace ws = WORKSPACE.get();
+        int goalIndex = search(grid, start, goal, ws);
+
+        return (goalIndex < 0) ? -1 : ws.cost[goalIndex] + 1;
+    }
+
+    private static int search(Grid grid, Point start, Point goal, Workspace ws) {
+
+        if (!grid.inBounds(start.x, start.y) || !grid.inBounds(goal.x, goal.y)) return -1;
+
+        int width = grid.getWidth();
+        int startIndex = start.y * width + start.x;
+        int goalIndex = goal.y * width + goal.x;
+
+        ws.prepare(width * grid.getHeight());
+        int[] cost = ws.cost;
+        int[] parent = ws.parent;
+        int[] seen = ws.seen;
+        int[] closed = ws.closed;
+        int stamp = ws.stamp;
+        CellHeap open = ws.open;
+        int[] dirs = ws.dirs;
+
+        seen[startIndex] = stamp;
+        cost[startIndex] = 0;
+        parent[startIndex] = -1;
+        int h0 = chebyshev(start.x, start.y, goal.x, goal.y);
+        open.push(CellHeap.key(h0, h0), startIndex);
+
+        while (!open.isEmpty()) {
+
+            int current = open.pop();
+
+            if (closed[current] == stamp) continue; // stale entry
+            closed[current] = stamp;
+
+            if (current == goalIndex) {
+                return current;
+            }
+
+            int cx = current % width;
+            int cy = current / width;
+            int count = successorDirections(grid, cx, cy, parent[current], width, dirs);
+
+            for (int i = 0; i < count; i += 2) {
+
+                int jump = jump(grid, cx, cy, dirs[i], dirs[i + 1], goal);
+                if (jump < 0) continue;
+
+                int next = jump;
+                if (closed[next] == stamp) continue;
+
+                int jx = next % width;
+                int jy = next / width;
+
+                int nextCost = cost[current] + chebyshev(cx, cy, jx, jy);
+                if (seen[next] == stamp && cost[next] <= nextCost) continue;
+
+                seen[next] = stamp;
+                cost[next] = nextCost;
+                parent[next] = current;
+
+                int h = chebyshev(jx, jy, goal.x, goal.y);
+                open.push(CellHeap.key(nextCost + h, h), next);
+            }
+        }
+
+        return -1;
+    }
+
+    // Writes the (dx, dy) pairs worth exploring from (x, y) into dirs and
+    // returns how many ints were written: natural neighbours of the incoming
+    // direction plus the forced ones created by adjacent obstacles.
+    private static int successorDirections(Grid grid, int x, int y, int parentCell, int width, int[] dirs) {
+
+        int n = 0;
+
+        if (parentCell < 0) {
+            for (int d = 0; d < 8; d++) {
+                dirs[n++] = DX[d];
+                dirs[n++] = DY[d];
+            }
+            return n;
+        }
+
+        int dx = Integer.compare(x, parentCell % width);
+        int dy = Integer.compare(y, parentCell / width);
+
+        if (dx != 0 && dy != 0) {
+            dirs[n++] = dx; dirs[n++] = 0;
+            dirs[n++] = 0;  dirs[n++] = dy;
+            dirs[n++] = dx; dirs[n++] = dy;
+            if (grid.isObstacle(x - dx, y)) { dirs[n++] = -dx; dirs[n++] = dy; }
+            if (grid.isObstacle(x, y - dy)) { dirs[n++] = dx;  dirs[n++] = -dy; }
+        } else if (dx != 0) {
+            dirs[n++] = dx; dirs[n++] = 0;
+            if (grid.isObstacle(x, y + 1)) { dirs[n++] = dx; dirs[n++] = 1; }
+            if (grid.isObstacle(x, y - 1)) { dirs[n++] = dx; dirs[n++] = -1; }
+        } else {
+            dirs[n++] = 0; dirs[n++] = dy;
+            if (grid.isObstacle(x + 1, y)) { dirs[n++] = 1;  dirs[n++] = dy; }
+            if (grid.isObstacle(x - 1, y)) { dirs[n++] = -1; dirs[n++] = dy; }
+        }
+
+        return n;
+    }
+
+    // Walks from (x, y) in direction (dx, dy) until reaching a jump point
+    // (returns its cell index) or an obstacle (returns -1).
+    private static int jump(Grid grid, int x, int y, int dx, int dy, Point goal) {
+
+        while (true) {
+
+            x += dx;
+            y += dy;
+
+            if (grid.isObstacle(x, y)) return -1;
+            if (x == goal.x && y == goal.y) return y * grid.getWidth() + x;
+
+            if (dx != 0 && dy != 0) {
+                if ((grid.isObstacle(x - dx, y) && !grid.isObstacle(x - dx, y + dy))
+                        || (grid.isObstacle(x, y - dy) && !grid.isObstacle(x + dx, y - dy))) {
+                    return y * grid.getWidth() + x;
+                }
+                if (jump(grid, x, y, dx, 0, goal) >= 0 || jump(grid, x, y, 0, dy, goal) >= 0) {
+                    return y * grid.getWidth() + x;
+                }
+            } else if (dx != 0) {
+                if ((grid.isObstacle(x, y + 1) && !grid.isObstacle(x + dx, y + 1))
+                        || (grid.isObstacle(x, y - 1) && !grid.isObstacle(x + dx, y - 1))) {
+                    return y * grid.getWidth() + x;
+                }
+            } else {
+                if ((grid.isObstacle(x + 1, y) && !grid.isObstacle(x + 1, y + dy))
+                        || (grid.isObstacle(x - 1, y) && !grid.isObstacle(x - 1, y + dy))) {
+                    return y * grid.getWidth() + x;
+                }
+            }
+        }
+    }
+
+    // Per-thread buffers reused between searches, invalidated by stamp and
+    // sized by WorkspaceSizing
+    private static class Workspace {
+
+        int[] cost = new int[0];
+        int[] parent = new int[0];
+        int[] seen = new int[0];
+        int[] closed = new int[0];
+        int stamp = 0;
+        final CellHeap open = new CellHeap();
+        final int[] dirs = new int[16];
+
+        void prepare(int cells) {
+
+            int length = WorkspaceSizing.resize(cost.length, cells);
+
+            if (length >= 0) {
+                cost = new int[length];
+                parent = new int[length];
+                seen = new int[length];
+                closed = new int[length];
+                stamp = 0;
+            }
+
+            stamp++;
+            if (stamp == 0) { // wrapped around, stale stamps could match
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+
+            open.clear(cells);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static main.pathfinding.GridMoves.*;
+
+// Level-synchronous BFS for large grids, one fork-join pass per distance
+// level. Each level runs in one of two directions:
+//   - top-down: the frontier cells are split into chunks, each claiming its
+//     free neighbours in the visited bitset with a CAS
+//   - bottom-up: the rows are split into bands, each adding the unvisited
+//     free cells next to a frontier cell, 64 cells at a time. Bands own
+//     their words, so no atomics are needed.
+// Bottom-up is used while the frontier is large compared to the cells left
+// to visit. The levels are the same either way, so the length always matches
+// BFSPathfinder. Grids below PARALLEL_THRESHOLD cells are left to it.
+// Frontier lists and bitmaps are double-buffered per search: each level
+// fills the spare buffer and swaps, so levels allocate nothing.
+public class ParallelBFSPathfinder implements Pathfinder {
+
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Frontier cells / rows handled by one task before it stops splitting
+    private static final int CELL_CHUNK = 4096;
+    private static final int ROW_CHUNK = 16;
+
+    // Direction switch (Beamer et al.): bottom-up once frontier * ALPHA
+    // exceeds the free cells left, top-down again below free cells / BETA
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    // Cells found by one top-down leaf task, copied into the next frontier
+    private static final ThreadLocal<int[]> FOUND =
+            ThreadLocal.withInitial(() -> new int[8 * CELL_CHUNK]);
+
+    private final ForkJoinPool pool;
+    private final Pathfinder sequential = new BFSPathfinder();
+
+    // Runs on a pool of its own, one thread per core, rather than on the
+    // common pool where it would compete with other fork-join work
+    public ParallelBFSPathfinder() {
+        this(DefaultPool.POOL);
+    }
+
+    public ParallelBFSPathfinder(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Created on first use
+    private static class DefaultPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public List<Point> findPath(Grid grid, Point start, Point goal) {
+
+        if (grid.getWidth() * grid.getHeight() < PARALLEL_THRESHOLD) {
+            return sequential.findPath(grid, start, goal);
+        }
+
+        Search search = new Search(grid, true);
+        if (search.run(start, goal) < 0) return null;
+
+        int width = grid.getWidth();
+        List<Point> path = new ArrayList<>();
+        for (int cell = goal.y * width + goal.x; cell >= 0; cell = search.parent[cell]) {
+            path.add(new Point(cell % width, cell / width));
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Only the bitsets, no parent array
+    @Override
+    public int findPathLength(Grid grid, Point start, Point goal) {
+
+        if (grid.getWidth() * grid.getHeight() < PARALLEL_THRESHOLD) {
+            return sequential.findPathLength(grid, start, goal);
+        }
+
+        int distance = new Search(grid, false).run(start, goal);
+        return distance < 0 ? -1 : distance + 1;
+    }
+
+    // State of one search. Bitsets use the Grid's layout: row y starts at
+    // word y * wordsPerRow, bits past the width are never set.
+    private class Search {
+
+        final Grid grid;
+        final int width;
+        final int height;
+        final int wordsPerRow;
+        final long tailMask; // valid bits of the last word of a row
+
+        final AtomicLongArray visited;
+        final int[] parent; // null when only the length is wanted
+
+        // Frontier, held as a cell list, a bitset or both. The next* buffers
+        // receive the next level and are swapped in; the bitsets are only
+        // allocated once a level goes bottom-up.
+        int[] frontier = new int[0];
+        int[] nextFrontier = new int[0];
+        int frontierSize;
+        long[] frontierBits;
+        long[] nextBits;
+        boolean listValid;
+        boolean bitsValid;
+
+        Search(Grid grid, boolean trackParents) {
+            this.grid = grid;
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            this.wordsPerRow = grid.getWordsPerRow();
+            this.tailMask = (width & 63) == 0 ? -1L : -1L >>> (64 - (width & 63));
+            this.visited = new AtomicLongArray(height * wordsPerRow);
+            this.parent = trackParents ? new int[width * height] : null;
+        }
+
+        // Distance in moves from start to goal, or -1
+        int run(Point start, Point goal) {
+
+            if (!grid.inBounds(start.x, start.y) || !grid.inBounds(goal.x, goal.y)) return -1;
+            if (start.equals(goal)) {
+                if (parent != null) parent[start.y * width + start.x] = -1;
+                return 0;
+            }
+            if (grid.isObstacle(goal.x, goal.y)) return -1;
+
+            long unvisited = countFreeCells() - (grid.isObstacle(start.x, start.y) ? 0 : 1);
+
+            int startCell = start.y * width + start.x;
+            setVisited(startCell);
+            if (parent != null) parent[startCell] = -1;
+
+            frontier = ensureCapacity(frontier, 1);
+            frontier[0] = startCell;
+            frontierSize = 1;
+            listValid = true;
+            bitsValid = false;
+
+            boolean bottomUp = false;
+
+            for (int level = 1; frontierSize > 0; level++) {
+
+                if (!bottomUp && (long) frontierSize * ALPHA > unvisited) {
+                    bottomUp = true;
+                } else if (bottomUp && (long) frontierSize * BETA < unvisited) {
+                    bottomUp = false;
+                }
+
+                if (bottomUp) {
+                    stepBottomUp();
+                } else {
+                    stepTopDown();
+                }
+
+                unvisited -= frontierSize;
+
+                if (isVisited(goal.y * width + goal.x)) return level;
+            }
+
+            return -1;
+        }
+
+        private void stepTopDown() {
+
+            if (!listValid) bitsToList();
+
+            int capacity = (int) Math.min((long) width * height, 8L * frontierSize);
+            nextFrontier = ensureCapacity(nextFrontier, capacity);
+            AtomicInteger nextSize = new AtomicInteger();
+
+            pool.invoke(new TopDownTask(frontier, 0, frontierSize, nextFrontier, nextSize));
+
+            int[] swap = frontier;
+            frontier = nextFrontier;
+            nextFrontier = swap;
+            frontierSize = nextSize.get();
+            listValid = true;
+            bitsValid = false;
+        }
+
+        // BottomUpTask writes every word of the next bitset, so the spare
+        // one needs no clearing
+        private void stepBottomUp() {
+
+            if (!bitsValid) listToBits();
+
+            frontierSize = pool.invoke(new BottomUpTask(frontierBits, nextBits, 0, height));
+
+            long[] swap = frontierBits;
+            frontierBits = nextBits;
+            nextBits = swap;
+            bitsValid = true;
+            listValid = false;
+        }
+
+        private void listToBits() {
+
+            if (frontierBits == null) {
+                frontierBits = new long[height * wordsPerRow];
+                nextBits = new long[height * wordsPerRow];
+            } else {
+                Arrays.fill(frontierBits, 0L);
+            }
+
+            for (int i = 0; i < frontierSize; i++) {
+                int cell = frontier[i];
+                int x = cell % width;
+                frontierBits[(cell / width) * wordsPerRow + (x >>> 6)] |= 1L << x;
+            }
+            bitsValid = true;
+        }
+
+        private void bitsToList() {
+            frontier = ensureCapacity(frontier, frontierSize);
+            int[] cells = frontier;
+            int n = 0;
+            for (int y = 0; y < height; y++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long bits = frontierBits[y * wordsPerRow + w];
+                    while (bits != 0) {
+                        cells[n++] = y * width + (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            listValid = true;
+        }
+
+        // buffer if it holds capacity cells, else a larger one (at least
+        // doubled, so a growing frontier reallocates only a few times)
+        private int[] ensureCapacity(int[] buffer, int capacity) {
+            if (buffer.length >= capacity) return buffer;
+            long grown = Math.max(capacity, 2L * buffer.length);
+            return new int[(int) Math.min(grown, (long) width * height)];
+        }
+
+        private long countFreeCells() {
+            long free = 0;
+            for (int y = 0; y < height; y++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    long valid = (w == wordsPerRow - 1) ? tailMask : -1L;
+                    free += Long.bitCount(~grid.getRowWord(y, w) & valid);
+                }
+            }
+            return free;
+        }
+
+        private boolean isVisited(int cell) {
+            int x = cell % width;
+            return (visited.get((cell / width) * wordsPerRow + (x >>> 6)) & (1L << x)) != 0;
+        }
+
+        private void setVisited(int cell) {
+            int x = cell % width;
+            int word = (cell / width) * wordsPerRow + (x >>> 6);
+            visited.set(word, visited.get(word) | (1L << x));
+        }
+
+        // Sets the visited bit unless another task got there first
+        private boolean claim(int cell) {
+            int x = cell % width;
+            int word = (cell / width) * wordsPerRow + (x >>> 6);
+            long bit = 1L << x;
+
+            while (true) {
+                long old = visited.get(word);
+                if ((old & bit) != 0) return false;
+                if (visited.compareAndSet(word, old, old | bit)) return true;
+            }
+        }
+
+        // Frontier bits of the 64 cells of word w in row y and their left and
+        // right neighbours, i.e. the cells with a frontier cell in the same
+        // row at distance <= 1
+        private long spread(long[] bits, int y, int w) {
+            if (y < 0 || y >= height) return 0;
+            int base = y * wordsPerRow;
+            long word = bits[base + w];
+            long spread = word | (word << 1) | (word >>> 1);
+            if (w > 0) spread |= bits[base + w - 1] >>> 63;
+            if (w + 1 < wordsPerRow) spread |= bits[base + w + 1] << 63;
+            return spread;
+        }
+
+        // Any neighbour of (x, y) that is in the frontier
+        private int frontierNeighbour(long[] bits, int x, int y) {
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                if (!grid.inBounds(nx, ny)) continue;
+                if ((bits[ny * wordsPerRow + (nx >>> 6)] & (1L << nx)) != 0) {
+                    return ny * width + nx;
+                }
+            }
+            return -1;
+        }
+
+        private class TopDownTask extends RecursiveAction {
+
+            private final int[] cells;
+            private final int from;
+            private final int to;
+            private final int[] next;
+            private final AtomicInteger nextSize;
+
+            TopDownTask(int[] cells, int from, int to, int[] next, AtomicInteger nextSize) {
+                this.cells = cells;
+                this.from = from;
+                this.to = to;
+                this.next = next;
+                this.nextSize = nextSize;
+            }
+
+            @Override
+            protected void compute() {
+
+                if (to - from > CELL_CHUNK) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new TopDownTask(cells, from, mid, next, nextSize),
+                              new TopDownTask(cells, mid, to, next, nextSize));
+                    return;
+                }
+
+                // Collected locally, then copied into one reserved block
+                int[] found = FOUND.get();
+                int count = 0;
+
+                for (int i = from; i < to; i++) {
+
+                    int current = cells[i];
+                    int blocked = grid.getNeighbourhoodMask(current % width, current / width);
+
+                    for (int d = 0; d < 8; d++) {
+
+                        if ((blocked & (1 << MASK_BIT[d])) != 0) continue;
+
+                        int cell = current + DY[d] * width + DX[d];
+                        if (claim(cell)) {
+                            if (parent != null) parent[cell] = current;
+                            found[count++] = cell;
+                        }
+                    }
+                }
+
+                int at = nextSize.getAndAdd(count);
+                System.arraycopy(found, 0, next, at, count);
+            }
+        }
+
+        private class BottomUpTask extends RecursiveTask<Integer> {
+
+            private final long[] current;
+            private final long[] next;
+            private final int fromRow;
+            private final int toRow;
+
+            BottomUpTask(long[] current, long[] next, int fromRow, int toRow) {
+                this.current = current;
+                this.next = next;
+                this.fromRow = fromRow;
+                this.toRow = toRow;
+            }
+
+            @Override
+            protected Integer compute() {
+
+                if (toRow - fromRow > ROW_CHUNK) {
+                    int mid = (fromRow + toRow) >>> 1;
+                    BottomUpTask top = new BottomUpTask(current, next, fromRow, mid);
+                    BottomUpTask bottom = new BottomUpTask(current, next, mid, toRow);
+                    top.fork();
+                    int found = bottom.compute();
+                    return found + top.join();
+                }
+
+                int found = 0;
+
+                for (int y = fromRow; y < toRow; y++) {
+                    for (int w = 0; w < wordsPerRow; w++) {
+
+                        int word = y * wordsPerRow + w;
+                        long valid = (w == wordsPerRow - 1) ? tailMask : -1L;
+                        long candidates = ~grid.getRowWord(y, w) & ~visited.get(word) & valid;
+
+                        long reached = (candidates == 0) ? 0 : candidates
+                                & (spread(current, y - 1, w) | spread(current, y, w) | spread(current, y + 1, w));
+
+                        next[word] = reached;
+                        if (reached == 0) continue;
+
+                        visited.set(word, visited.get(word) | reached);
+                        found += Long.bitCount(reached);
+
+                        if (parent != null) {
+                            for (long bits = reached; bits != 0; bits &= bits - 1) {
+                                int x = (w << 6) + Long.numberOfTrailingZeros(bits);
+                                parent[y * width + x] = frontierNeighbour(current, x, y);
+                            }
+                        }
+                    }
+                }
+
+                return found;
+            }
+        }
+    }
+}
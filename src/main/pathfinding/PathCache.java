@@ -0,0 +1,277 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Optimal paths and path lengths keyed by (Grid.contentHash, size, start,
+// goal), so equal maps share entries whatever Grid instance or file they
+// came from. An entry holds the length and, when a path was asked for, its
+// cells; length-only entries serve findPathLength without a path ever being
+// built. LRU in memory, bounded by the cells stored (each entry counts
+// ENTRY_CELLS on top of its path), so a few long paths cannot fill the heap.
+// With a file, entries are loaded on open and written back by save(), so
+// reruns of the same maps skip the search. Thread safe.
+//
+// File layout (big-endian): int magic ("BPCH"), int version, int count, then
+// per entry: long hash, int width, int height, int startX, int startY,
+// int goalX, int goalY, int length (-1 = no path), int stored (cells that
+// follow: length, or 0 for a length-only entry), stored cell indices
+// (y * width + x).
+public class PathCache {
+
+    public static final int MAGIC = 0x42504348; // "BPCH"
+    public static final int VERSION = 2;
+
+    // lookupLength result for "not cached"
+    static final int UNKNOWN = -2;
+
+    // Rough size of a key and its map node, in cells
+    private static final int ENTRY_CELLS = 16;
+
+    // Marker for "searched, no path"; real paths have at least one cell
+    private static final int[] NO_PATH = new int[0];
+
+    private final long maxCells;
+    private final Path file; // nullable, memory only
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cells; // weight of the entries, see ENTRY_CELLS
+    private long hits;
+    private long misses;
+
+    public PathCache(long maxCells) {
+        this(maxCells, null);
+    }
+
+    private PathCache(long maxCells, Path file) {
+        this.maxCells = maxCells;
+        this.file = file;
+    }
+
+    // Cache backed by file, starting with its entries if it exists
+    public static PathCache open(Path file, long maxCells) throws IOException {
+
+        PathCache cache = new PathCache(maxCells, file);
+        if (!Files.exists(file)) return cache;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), 1 << 16))) {
+
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + ": not a path cache file");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported path cache version " + version);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Key key = new Key(in.readLong(), in.readInt(), in.readInt(),
+                        in.readInt(), in.readInt(), in.readInt(), in.readInt());
+
+                int length = in.readInt();
+                int stored = in.readInt();
+
+                if (length < -1 || (stored != 0 && stored != length)) {
+                    throw new IOException(file + ": corrupt path cache entry");
+                }
+
+                int[] cells = (length < 0) ? NO_PATH : null;
+                if (stored > 0) {
+                    cells = new int[stored];
+                    for (int c = 0; c < stored; c++) {
+                        cells[c] = in.readInt();
+                    }
+                }
+                cache.put(key, new Entry(length, cells));
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + ": truncated path cache", e);
+        }
+
+        return cache;
+    }
+
+    // Writes the entries (least recently used first) to the backing file.
+    // Does nothing for a memory-only cache.
+    public synchronized void save() throws IOException {
+
+        if (file == null) return;
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmp), 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+
+            for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+                Key k = e.getKey();
+                out.writeLong(k.hash);
+                out.writeInt(k.width);
+                out.writeInt(k.height);
+                out.writeInt(k.startX);
+                out.writeInt(k.startY);
+                out.writeInt(k.goalX);
+                out.writeInt(k.goalY);
+
+                Entry entry = e.getValue();
+                int[] cells = (entry.cells == null) ? NO_PATH : entry.cells;
+                out.writeInt(entry.length);
+                out.writeInt(cells.length);
+                for (int cell : cells) {
+                    out.writeInt(cell);
+                }
+            }
+        }
+
+        // Readers never see a half-written cache
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // The cached path as cells, NO_PATH, or null on a miss. A length-only
+    // entry is a miss here.
+    synchronized int[] lookupPath(Grid grid, Point start, Point goal) {
+        Entry entry = entries.get(new Key(grid, start, goal));
+        int[] cells = (entry == null) ? null : entry.cells;
+        count(cells != null);
+        return cells;
+    }
+
+    // The cached length (-1 = no path), or UNKNOWN on a miss
+    synchronized int lookupLength(Grid grid, Point start, Point goal) {
+        Entry entry = entries.get(new Key(grid, start, goal));
+        count(entry != null);
+        return (entry == null) ? UNKNOWN : entry.length;
+    }
+
+    synchronized void storePath(Grid grid, Point start, Point goal, List<Point> path) {
+
+        int[] cells = NO_PATH;
+
+        if (path != null) {
+            cells = new int[path.size()];
+            for (int i = 0; i < cells.length; i++) {
+                Point p = path.get(i);
+                cells[i] = p.y * grid.getWidth() + p.x;
+            }
+        }
+
+        put(new Key(grid, start, goal), new Entry(path == null ? -1 : cells.length, cells));
+    }
+
+    // Keeps a cached path, if there is one, rather than replace it
+    synchronized void storeLength(Grid grid, Point start, Point goal, int length) {
+        Key key = new Key(grid, start, goal);
+        if (entries.containsKey(key)) return;
+        put(key, new Entry(length, length < 0 ? NO_PATH : null));
+    }
+
+    private void count(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    private void put(Key key, Entry entry) {
+
+        Entry old = entries.put(key, entry);
+        cells += entry.weight() - (old == null ? 0 : old.weight());
+
+        // Least recently used first; an entry alone over the budget goes too
+        Iterator<Entry> it = entries.values().iterator();
+        while (cells > maxCells && it.hasNext()) {
+            cells -= it.next().weight();
+            it.remove();
+        }
+    }
+
+    static boolean isNoPath(int[] cells) {
+        return cells == NO_PATH;
+    }
+
+    static List<Point> toPath(int[] cells, int width) {
+        List<Point> path = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            path.add(new Point(cell % width, cell / width));
+        }
+        return path;
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getCells() { return cells; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+
+    private static final class Entry {
+
+        final int length;  // -1 = no path
+        final int[] cells; // NO_PATH, the path, or null when only the length is known
+
+        Entry(int length, int[] cells) {
+            this.length = length;
+            this.cells = cells;
+        }
+
+        long weight() {
+            return ENTRY_CELLS + (cells == null ? 0 : cells.length);
+        }
+    }
+
+    private static final class Key {
+
+        final long hash;
+        final int width;
+        final int height;
+        final int startX;
+        final int startY;
+        final int goalX;
+        final int goalY;
+
+        Key(Grid grid, Point start, Point goal) {
+            this(grid.contentHash(), grid.getWidth(), grid.getHeight(),
+                    start.x, start.y, goal.x, goal.y);
+        }
+
+        Key(long hash, int width, int height, int startX, int startY, int goalX, int goalY) {
+            this.hash = hash;
+            this.width = width;
+            this.height = height;
+            this.startX = startX;
+            this.startY = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && width == k.width && height == k.height
+                    && startX == k.startX && startY == k.startY
+                    && goalX == k.goalX && goalY == k.goalY;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = Long.hashCode(hash);
+            h = 31 * h + startY * width + startX;
+            return 31 * h + goalY * width + goalX;
+        }
+    }
+}
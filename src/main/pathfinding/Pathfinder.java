@@ -0,0 +1,31 @@
+package main.pathfinding;
+
+import main.grid.Grid;
+
+import java.awt.Point;
+import java.util.List;
+
+// Optimal 8-connected path search. Every move (cardinal or diagonal) costs
+// one step, so all implementations return paths of the same length.
+public interface Pathfinder {
+
+    // Cells from start to goal (both included), or null if there is no path
+    List<Point> findPath(Grid grid, Point start, Point goal);
+
+    // Same as findPath(...).size(), or -1 if there is no path
+    int findPathLength(Grid grid, Point start, Point goal);
+
+    static Pathfinder byName(String name) {
+        switch (name.toLowerCase()) {
+            case "bfs":   return new BFSPathfinder();
+            case "astar": return new AStarPathfinder();
+            case "jps":   return new JPSPathfinder();
+            case "field": return new DistanceFieldPathfinder();
+            case "pbfs":  return new ParallelBFSPathfinder();
+            case "bits":  return new BitBFSPathfinder();
+            case "hpa":   return new HPAPathfinder();
+            default:
+                throw new IllegalArgumentException("Unknown pathfinder: " + name);
+        }
+    }
+}
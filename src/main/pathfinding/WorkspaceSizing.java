@@ -0,0 +1,29 @@
+package main.pathfinding;
+
+// Sizing rule of the per-thread search workspaces. Buffers grow to the grid
+// and follow it down again once they are SHRINK_FACTOR times larger than
+// needed, so one huge map does not pin its buffers in every thread that
+// searched it for the rest of the thread's life. Below MIN_CELLS they are
+// never shrunk, so small maps of varying sizes keep reusing them.
+final class WorkspaceSizing {
+
+    static final int SHRINK_FACTOR = 4;
+    static final int MIN_CELLS = 1 << 16;
+
+    private WorkspaceSizing() {
+    }
+
+    // New length for buffers of length current that must hold needed
+    // entries, or -1 to keep them
+    static int resize(int current, int needed) {
+
+        if (current >= needed && !oversized(current, needed)) return -1;
+
+        return Math.max(needed, Math.min(current, MIN_CELLS));
+    }
+
+    // Whether buffers of length current are oversized for needed entries
+    static boolean oversized(int current, int needed) {
+        return current > MIN_CELLS && current / SHRINK_FACTOR > needed;
+    }
+}
@@ -14,11 +14,11 @@ public class CompareSimulator {
 
     public void step() {
 
-        if (!bug1.hasFinished()) {
+        if (!bug1.hasFinished() && !bug1.hasGivenUp()) {
             bug1.nextStep();
         }
 
-        if (!bug2.hasFinished()) {
+        if (!bug2.hasFinished() && !bug2.hasGivenUp()) {
             bug2.nextStep();
         }
     }
@@ -0,0 +1,270 @@
+package main.simulation;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import main.BinaryMapFormat;
+import main.MapFileLoader;
+import main.bug.BugAlgorithm;
+import main.bug.BugAlgorithm.BugState;
+import main.grid.Grid;
+import main.pathfinding.Pathfinder;
+
+// Runs the bugs over every map of a directory (.map and .bmap; when both
+// exist the binary is used unless the text map is newer). Each map is a chain of tasks on a shared pool:
+// load -> optimal length -> one simulation per bug. Maps whose goal cannot
+// be reached are recorded as such without simulating the bugs. At most
+// MAPS_PER_THREAD * parallelism maps are in flight, so a large corpus is not
+// loaded into memory all at once. Optimal lengths are searched on every
+// run; a CachingPathfinder keeps them across runs.
+public class CorpusRunner {
+
+    private static final int MAPS_PER_THREAD = 2;
+
+    private final int parallelism;
+    private final Pathfinder pathfinder;
+
+    // parallelism <= 0 uses every available core
+    public CorpusRunner(int parallelism, Pathfinder pathfinder) {
+        this.parallelism = (parallelism <= 0)
+                ? Runtime.getRuntime().availableProcessors()
+                : parallelism;
+        this.pathfinder = pathfinder;
+    }
+
+    // Results in map name order. bug2Factory is null when only one bug runs.
+    public List<MapResult> run(
+            File directory,
+            Supplier<BugAlgorithm> bugFactory,
+            Supplier<BugAlgorithm> bug2Factory
+    ) throws IOException {
+
+        List<File> files = listMaps(directory);
+        MapResult[] results = new MapResult[files.size()];
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(MAPS_PER_THREAD * parallelism);
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[files.size()];
+
+        try {
+            for (int i = 0; i < files.size(); i++) {
+
+                inFlight.acquireUninterruptibly();
+
+                final int index = i;
+                final File file = files.get(i);
+
+                // Wall time runs from the start of the load task, so time
+                // spent queued behind other maps is not counted
+                pending[i] = CompletableFuture
+                        .supplyAsync(() -> load(file), pool)
+                        .thenApplyAsync(this::prepare, pool)
+                        .thenCompose(map -> simulate(map, bugFactory, bug2Factory, pool)
+                                .thenApply(result -> {
+                                    result.wallTimeNanos = System.nanoTime() - map.startTime;
+                                    return result;
+                                }))
+                        .handle((result, error) -> {
+                            if (error != null) {
+                                result = MapResult.failed(file.getName(), error);
+                            }
+                            results[index] = result;
+                            inFlight.release();
+                            return null;
+                        });
+            }
+
+            CompletableFuture.allOf(pending).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Aggregate over the maps that were loaded. Maps whose goal cannot be
+    // reached count as unreachable, like in a random marathon.
+    public static MarathonResult summarize(List<MapResult> maps) {
+
+        MarathonResult result = new MarathonResult();
+
+        for (MapResult map : maps) {
+
+            if (map.error != null) continue;
+
+            result.totalMaps++;
+            result.wallTimeNanos.record(map.wallTimeNanos);
+
+            if (map.optimalLength < 0) {
+                result.unreachable++;
+            } else {
+                result.addMap(map.optimalLength,
+                        map.bug1State, map.bug1Steps,
+                        map.bug2State, map.bug2Steps);
+            }
+        }
+
+        return result;
+    }
+
+    private static List<File> listMaps(File directory) throws IOException {
+
+        File[] files = directory.listFiles((dir, name) ->
+                name.endsWith(".map") || name.endsWith(BinaryMapFormat.EXTENSION));
+
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+
+        // Keyed by base name, so a .bmap replaces the .map it was converted
+        // from unless it is stale
+        TreeMap<String, File> byName = new TreeMap<>();
+
+        for (File file : files) {
+            String name = file.getName();
+            String base = name.substring(0, name.lastIndexOf('.'));
+            File other = byName.get(base);
+
+            if (other == null) {
+                byName.put(base, file);
+            } else {
+                File text = name.endsWith(BinaryMapFormat.EXTENSION) ? other : file;
+                File binary = (text == file) ? other : file;
+                byName.put(base, MapFileLoader.preferBinary(text, binary) ? binary : text);
+            }
+        }
+
+        return new ArrayList<>(byName.values());
+    }
+
+    private static CorpusMap load(File file) {
+
+        long startTime = System.nanoTime();
+        MapFileLoader.LoadedMap loaded;
+        try {
+            loaded = MapFileLoader.load(file.toPath());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+
+        if (loaded.start == null || loaded.goal == null) {
+            throw new CompletionException(new IOException(file.getName() + ": start or goal not set"));
+        }
+
+        return new CorpusMap(file.getName(), loaded.grid, loaded.start, loaded.goal, startTime);
+    }
+
+    private CorpusMap prepare(CorpusMap map) {
+        Point s = map.start;
+        Point g = map.goal;
+        map.optimalLength = map.grid.connected(s.x, s.y, g.x, g.y)
+                ? pathfinder.findPathLength(map.grid, s, g)
+                : -1;
+        return map;
+    }
+
+    // One task per bug. The grid is only read from here on, so the bugs can
+    // share it.
+    private static CompletableFuture<MapResult> simulate(
+            CorpusMap map,
+            Supplier<BugAlgorithm> bugFactory,
+            Supplier<BugAlgorithm> bug2Factory,
+            ExecutorService pool
+    ) {
+
+        // Rejected before simulating, like an unreachable marathon map
+        if (map.optimalLength < 0) {
+            return CompletableFuture.completedFuture(newResult(map));
+        }
+
+        CompletableFuture<BugAlgorithm> run1 =
+                CompletableFuture.supplyAsync(() -> runBug(bugFactory, map), pool);
+
+        CompletableFuture<BugAlgorithm> run2 = (bug2Factory == null)
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> runBug(bug2Factory, map), pool);
+
+        return run1.thenCombine(run2, (bug1, bug2) -> {
+
+            MapResult result = newResult(map);
+            result.bug1State = bug1.getState();
+            result.bug1Steps = bug1.getHistory().size();
+
+            if (bug2 != null) {
+                result.bug2State = bug2.getState();
+                result.bug2Steps = bug2.getHistory().size();
+            }
+            return result;
+        });
+    }
+
+    private static MapResult newResult(CorpusMap map) {
+        MapResult result = new MapResult(map.name);
+        result.width = map.grid.getWidth();
+        result.height = map.grid.getHeight();
+        result.optimalLength = map.optimalLength;
+        return result;
+    }
+
+    // Bugs are seeded from the map's file name, so reruns are reproducible
+    private static BugAlgorithm runBug(Supplier<BugAlgorithm> factory, CorpusMap map) {
+        BugAlgorithm bug = factory.get();
+        bug.init(map.grid, map.start, map.goal, MarathonRunner.bugSeed(map.name.hashCode()));
+        bug.runUntil(MarathonRunner.MAX_STEPS);
+        return bug;
+    }
+
+    public static class MapResult {
+
+        public final String name;
+        public int width;
+        public int height;
+        public int optimalLength = -1; // -1 = goal unreachable
+        public BugState bug1State; // null when the goal is unreachable
+        public int bug1Steps;
+        public BugState bug2State; // null when only one bug ran
+        public int bug2Steps;
+        public long wallTimeNanos; // 0 when the map could not be loaded
+        public String error; // non-null when the map could not be loaded
+
+        MapResult(String name) {
+            this.name = name;
+        }
+
+        static MapResult failed(String name, Throwable error) {
+            Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                    ? error.getCause()
+                    : error;
+            MapResult result = new MapResult(name);
+            result.error = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+            return result;
+        }
+    }
+
+    private static class CorpusMap {
+        final String name;
+        final Grid grid;
+        final Point start;
+        final Point goal;
+        final long startTime; // System.nanoTime() when loading began
+        int optimalLength;
+
+        CorpusMap(String name, Grid grid, Point start, Point goal, long startTime) {
+            this.name = name;
+            this.grid = grid;
+            this.start = start;
+            this.goal = goal;
+            this.startTime = startTime;
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package main.simulation;
 
+import main.bug.BugAlgorithm.BugState;
+
 public class MarathonResult {
 
     public int totalMaps;
     public int completed;
     public int gaveUp;
     public int terminated;
-    public int totalSteps;
-    public int totalOptimalSteps;
+    public int unreachable; // Goal not reachable from start, not simulated
+    public long totalSteps;
+    public long totalOptimalSteps;
 
     public int wins;      // Only used in compare mode
     public int losses;
     public int ties;
 
+    // Distributions over completed maps (first bug), plus wall time of every map
+    public static final int EFFICIENCY_SCALE = 10_000; // efficiencyRatio unit
+
+    public final LogHistogram pathLength = new LogHistogram();
+    public final LogHistogram stepsOverOptimal = new LogHistogram();
+    public final LogHistogram efficiencyRatio = new LogHistogram();
+    public final LogHistogram wallTimeNanos = new LogHistogram();
+
     public double averageSteps() {
         return completed == 0 ? 0 : (double) totalSteps / completed;
     }
@@ -25,4 +36,51 @@ public class MarathonResult {
         return totalOptimalSteps == 0 ? 0 :
                 (double) totalOptimalSteps / totalSteps;
     }
+
+    // Accounts one simulated map. state2 is null when only one bug ran.
+    public void addMap(int optimal, BugState state1, int steps1, BugState state2, int steps2) {
+
+        if (state1 == BugState.FINISHED) {
+            completed++;
+            totalSteps += steps1;
+            totalOptimalSteps += optimal;
+
+            pathLength.record(steps1);
+            stepsOverOptimal.record(steps1 - optimal);
+            efficiencyRatio.record((long) optimal * EFFICIENCY_SCALE / steps1);
+        } else if (state1 == BugState.GAVE_UP) {
+            gaveUp++;
+        } else {
+            terminated++;
+        }
+
+        if (state1 == BugState.FINISHED && state2 == BugState.FINISHED) {
+            if (steps1 < steps2)
+                wins++;
+            else if (steps1 > steps2)
+                losses++;
+            else
+                ties++;
+        }
+    }
+
+    // Adds the counters of a partial result (e.g. from a parallel worker)
+    public void merge(MarathonResult other) {
+        totalMaps += other.totalMaps;
+        completed += other.completed;
+        gaveUp += other.gaveUp;
+        terminated += other.terminated;
+        unreachable += other.unreachable;
+        totalSteps += other.totalSteps;
+        totalOptimalSteps += other.totalOptimalSteps;
+
+        wins += other.wins;
+        losses += other.losses;
+        ties += other.ties;
+
+        pathLength.merge(other.pathLength);
+        stepsOverOptimal.merge(other.stepsOverOptimal);
+        efficiencyRatio.merge(other.efficiencyRatio);
+        wallTimeNanos.merge(other.wallTimeNanos);
+    }
 }
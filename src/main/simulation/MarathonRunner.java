@@ -1,17 +1,65 @@
 package main.simulation;
 
 import java.awt.Point;
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Random;
 import java.util.function.Supplier;
 import main.bug.*;
 import main.grid.*;
 import main.pathfinding.BFSPathfinder;
+import main.simulation.sink.MapRecord;
+import main.simulation.sink.MapRecordSink;
 
-public class MarathonRunner {
+public class MarathonRunner extends SeededMapRunner {
 
     private static final double OBS_PROB = 0.01;
 
+    // Side of the random maps, drawn per map and axis unless a size is set
+    private static final int MIN_SIZE = 20;
+    private static final int MAX_SIZE = 60;
+
+    // Safety budget of steps per bug and map
+    public static final int MAX_STEPS = 10_000;
+
+    // Shortest optimal path (in cells) accepted for a random goal
+    private static final int MIN_OPTIMAL_LENGTH = 10;
+
+    // SplitMix64 increment (same gamma as java.util.SplittableRandom)
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private MapRecordSink sink; // nullable, receives one record per map
+
+    private int mapSize;                 // 0 = random MIN_SIZE..MAX_SIZE
+    private double obstacleDensity = OBS_PROB;
+
+    public MarathonRunner() {
+        this(1);
+    }
+
+    public MarathonRunner(int parallelism) {
+        this(parallelism, System.currentTimeMillis());
+    }
+
+    // parallelism <= 0 uses every available core
+    public MarathonRunner(int parallelism, long masterSeed) {
+        super(parallelism, masterSeed);
+    }
+
+    // The sink must accept records from several threads in parallel mode
+    // (AsyncMapRecordSink does); records then arrive out of index order.
+    public void setRecordSink(MapRecordSink sink) {
+        this.sink = sink;
+    }
+
+    // Square maps of the given side and obstacle density instead of the
+    // default random shape. Used by the benchmarks to scale the maps up.
+    public void setMapShape(int size, double obstacleDensity) {
+        if (size <= 0) throw new IllegalArgumentException("Map size must be positive: " + size);
+        this.mapSize = size;
+        this.obstacleDensity = obstacleDensity;
+    }
+
     public MarathonResult run(
             int numberOfMaps,
             Supplier<BugAlgorithm> bugFactory,
@@ -19,41 +67,148 @@ public class MarathonRunner {
             Supplier<BugAlgorithm> bug2Factory
     ) {
 
-        MarathonResult result = new MarathonResult();
+        MarathonResult result = runChunked(numberOfMaps,
+                (from, to) -> runRange(from, to, bugFactory, compareMode, bug2Factory),
+                MarathonResult::merge);
+
         result.totalMaps = numberOfMaps;
+        return result;
+    }
 
-        for (int i = 0; i < numberOfMaps; i++) {
-            long generatedSeed = System.currentTimeMillis();
-            Random rand = new Random(generatedSeed);
-            int width = 20 + rand.nextInt(41);
-            int height = 20 + rand.nextInt(41);
+    private MarathonResult runRange(
+            int from,
+            int to,
+            Supplier<BugAlgorithm> bugFactory,
+            boolean compareMode,
+            Supplier<BugAlgorithm> bug2Factory
+    ) {
 
-            Grid map = MapGenerator.generate(width, height, OBS_PROB, rand);
-            Point start = getRandomFreeCell(map, rand);
-            Point goal = start;
+        MarathonResult result = new MarathonResult();
 
-            List<Point> optimalPath = null;
-            while (goal.equals(start) || (optimalPath != null && optimalPath.size() < 10)) {
-                goal = getRandomFreeCell(map, rand);
-                optimalPath = BFSPathfinder.findPath(map, start, goal);
-            }
+        for (int i = from; i < to; i++) {
+            runMap(i, mapSeed(masterSeed, i), bugFactory, compareMode, bug2Factory, result);
+        }
+
+        return result;
+    }
 
-            BugAlgorithm bug1 = bugFactory.get();
-            bug1.init(map, start, goal);
+    // Seed of the index-th map of a marathon. Depends only on the master seed
+    // and the index, so any map can be regenerated on its own.
+    public static long mapSeed(long masterSeed, int index) {
+        long z = masterSeed + (index + 1L) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Seed handed to every bug on the map of the given seed, whatever the
+    // mode or the bug's slot, so a random bug replays the same moves
+    // whenever the map is replayed
+    public static long bugSeed(long mapSeed) {
+        return mapSeed(mapSeed, 0);
+    }
+
+    private void runMap(
+            int index,
+            long seed,
+            Supplier<BugAlgorithm> bugFactory,
+            boolean compareMode,
+            Supplier<BugAlgorithm> bug2Factory,
+            MarathonResult result
+    ) {
 
-            BugAlgorithm bug2 = null;
-            if (compareMode) {
-                bug2 = bug2Factory.get();
-                bug2.init(map, start, goal);
+        long startTime = System.nanoTime();
+
+        MarathonMap m = generateMap(seed, mapSize, obstacleDensity);
+        Grid map = m.grid;
+        Point start = m.start;
+
+        if (m.goal == null) {
+            result.unreachable++;
+
+            long wallTime = System.nanoTime() - startTime;
+            result.wallTimeNanos.record(wallTime);
+
+            if (sink != null) {
+                record(new MapRecord(index, seed, m.width, m.height, start.x, start.y, -1, -1, -1,
+                        0, null, 0, null, wallTime));
             }
+            return;
+        }
 
-            runSingleMap(map, bug1, bug2, result, (optimalPath == null) ? 0 : optimalPath.size());
+        Point goal = m.goal;
+        int optimal = m.optimalLength;
+
+        BugAlgorithm bug1 = bugFactory.get();
+        bug1.init(map, start, goal, bugSeed(seed));
+
+        BugAlgorithm bug2 = null;
+        if (compareMode) {
+            bug2 = bug2Factory.get();
+            bug2.init(map, start, goal, bugSeed(seed));
         }
 
-        return result;
+        runSingleMap(map, bug1, bug2, result, optimal);
+
+        long wallTime = System.nanoTime() - startTime;
+        result.wallTimeNanos.record(wallTime);
+
+        if (sink != null) {
+            record(new MapRecord(index, seed, m.width, m.height, start.x, start.y, goal.x, goal.y, optimal,
+                    bug1.getHistory().size(), bug1.getState(),
+                    bug2 == null ? 0 : bug2.getHistory().size(),
+                    bug2 == null ? null : bug2.getState(),
+                    wallTime));
+        }
+    }
+
+    // Random map of the given seed with its start, goal and optimal length.
+    // A start with all 8 neighbours blocked is a component of its own: no
+    // goal can be reached, so the search is skipped and goal is left null.
+    static MarathonMap generateMap(long seed) {
+        return generateMap(seed, 0, OBS_PROB);
+    }
+
+    // size 0 draws width and height like generateMap(seed)
+    static MarathonMap generateMap(long seed, int size, double obstacleDensity) {
+
+        Random rand = new Random(seed);
+        int width = (size > 0) ? size : MIN_SIZE + rand.nextInt(MAX_SIZE - MIN_SIZE + 1);
+        int height = (size > 0) ? size : MIN_SIZE + rand.nextInt(MAX_SIZE - MIN_SIZE + 1);
+
+        MarathonMap m = new MarathonMap();
+        m.width = width;
+        m.height = height;
+        m.grid = MapGenerator.generate(width, height, obstacleDensity, rand);
+        m.start = getRandomFreeCell(m.grid, rand);
+
+        if (m.grid.getNeighbourhoodMask(m.start.x, m.start.y) != 0xFF) {
+            BFSPathfinder.GoalChoice choice = BFSPathfinder.pickGoal(m.grid, m.start, MIN_OPTIMAL_LENGTH, rand);
+            m.goal = choice.goal;
+            m.optimalLength = choice.optimalLength;
+        }
+
+        return m;
     }
 
-    private Point getRandomFreeCell(Grid grid, Random rand) {
+    static class MarathonMap {
+        int width;
+        int height;
+        Grid grid;
+        Point start;
+        Point goal;             // null when nothing is reachable from start
+        int optimalLength = -1;
+    }
+
+    private void record(MapRecord record) {
+        try {
+            sink.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Point getRandomFreeCell(Grid grid, Random rand) {
         int x, y;
 
         do {
@@ -72,24 +227,12 @@ public class MarathonRunner {
             int optimal
     ) {
 
-        int maxSteps = 10_000;  // safety
-
-        while (maxSteps-- > 0) {
-
-            if (!bug1.hasFinished() && !bug1.hasGivenUp())
-                bug1.nextStep();
+        // The bugs do not interact, so running them one after the other
+        // gives the same result as stepping them in lockstep
+        bug1.runUntil(MAX_STEPS);
 
-            if (bug2 != null && !bug2.hasFinished() && !bug2.hasGivenUp())
-                bug2.nextStep();
-
-            if (bug2 == null) {
-                if (bug1.hasFinished() || bug1.hasGivenUp())
-                    break;
-            } else {
-                if ((bug1.hasFinished() || bug1.hasGivenUp()) &&
-                    (bug2.hasFinished() || bug2.hasGivenUp()))
-                    break;
-            }
+        if (bug2 != null) {
+            bug2.runUntil(MAX_STEPS);
         }
 
         processResults(bug1, bug2, result, map, optimal);
@@ -103,26 +246,9 @@ public class MarathonRunner {
             int optimal
     ) {
 
-        if (bug1.hasFinished()) {
-            result.completed++;
-            result.totalSteps += bug1.getHistory().size();
-            result.totalOptimalSteps += optimal;
-        } else if(bug1.hasGivenUp()){
-            result.gaveUp++;
-        } else {
-            result.terminated++;
-        }
-
-        if (bug2 != null) {
-
-            if (bug1.hasFinished() && bug2.hasFinished()) {
-                if (bug1.getHistory().size() < bug2.getHistory().size())
-                    result.wins++;
-                else if (bug1.getHistory().size() > bug2.getHistory().size())
-                    result.losses++;
-                else
-                    result.ties++;
-            }
-        }
+        result.addMap(optimal,
+                bug1.getState(), bug1.getHistory().size(),
+                bug2 == null ? null : bug2.getState(),
+                bug2 == null ? 0 : bug2.getHistory().size());
     }
 }
@@ -0,0 +1,88 @@
+package main.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+// Shared setup of the runners that play a range of seeded random maps:
+// parallelism, master seed, and the chunked fork-join split of the map
+// index range. Map i always gets MarathonRunner.mapSeed(masterSeed, i), so
+// results do not depend on the parallelism.
+abstract class SeededMapRunner {
+
+    // Maps handled by a single fork-join task before it stops splitting
+    private static final int CHUNK_SIZE = 64;
+
+    protected final int parallelism;
+    protected final long masterSeed;
+
+    // parallelism <= 0 uses every available core
+    protected SeededMapRunner(int parallelism, long masterSeed) {
+        this.parallelism = (parallelism <= 0)
+                ? Runtime.getRuntime().availableProcessors()
+                : parallelism;
+        this.masterSeed = masterSeed;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    // Result of maps [from, to)
+    interface RangeRunner<R> {
+        R run(int from, int to);
+    }
+
+    // Runs maps [0, count), sequentially or on a pool of parallelism
+    // threads. mergeInto(left, right) adds right's maps to left; partial
+    // results are merged back in index order.
+    protected <R> R runChunked(int count, RangeRunner<R> range, BiConsumer<R, R> mergeInto) {
+
+        if (parallelism <= 1) {
+            return range.run(0, count);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new RangeTask<>(0, count, range, mergeInto));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Splits the map index range in halves until it is small enough to run
+    // sequentially
+    private static class RangeTask<R> extends RecursiveTask<R> {
+
+        private final int from;
+        private final int to;
+        private final RangeRunner<R> range;
+        private final BiConsumer<R, R> mergeInto;
+
+        RangeTask(int from, int to, RangeRunner<R> range, BiConsumer<R, R> mergeInto) {
+            this.from = from;
+            this.to = to;
+            this.range = range;
+            this.mergeInto = mergeInto;
+        }
+
+        @Override
+        protected R compute() {
+
+            if (to - from <= CHUNK_SIZE) {
+                return range.run(from, to);
+            }
+
+            int mid = (from + to) >>> 1;
+            RangeTask<R> left = new RangeTask<>(from, mid, range, mergeInto);
+            RangeTask<R> right = new RangeTask<>(mid, to, range, mergeInto);
+
+            left.fork();
+            R result = right.compute();
+            R leftResult = left.join();
+
+            mergeInto.accept(leftResult, result);
+            return leftResult;
+        }
+    }
+}
@@ -11,7 +11,7 @@ public class Simulator {
     }
 
     public void step() {
-        if (!bug.hasFinished()) {
+        if (!bug.hasFinished() && !bug.hasGivenUp()) {
             bug.nextStep();
         }
     }
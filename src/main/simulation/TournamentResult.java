@@ -0,0 +1,89 @@
+package main.simulation;
+
+import java.util.List;
+
+import main.bug.BugAlgorithm.BugState;
+
+public class TournamentResult {
+
+    public final List<String> names;
+
+    // Aggregates of each bug on its own, as in a single-bug marathon
+    public final MarathonResult[] perBug;
+
+    // wins[i][j]: maps where bug i and bug j both finished and i took fewer
+    // steps. Losses of i against j are wins[j][i].
+    public final int[][] wins;
+    public final int[][] ties;
+
+    public int totalMaps;
+    public int unreachable;
+
+    public TournamentResult(List<String> names) {
+        int n = names.size();
+        this.names = names;
+        this.perBug = new MarathonResult[n];
+        this.wins = new int[n][n];
+        this.ties = new int[n][n];
+
+        for (int i = 0; i < n; i++) {
+            perBug[i] = new MarathonResult();
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    // Accounts one map that every bug ran on
+    void addMap(int optimal, BugState[] states, int[] steps, long[] wallTimes) {
+
+        int n = size();
+
+        for (int i = 0; i < n; i++) {
+            perBug[i].totalMaps++;
+            perBug[i].wallTimeNanos.record(wallTimes[i]);
+            perBug[i].addMap(optimal, states[i], steps[i], null, 0);
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (states[i] != BugState.FINISHED) continue;
+
+            for (int j = i + 1; j < n; j++) {
+                if (states[j] != BugState.FINISHED) continue;
+
+                if (steps[i] < steps[j]) {
+                    wins[i][j]++;
+                } else if (steps[j] < steps[i]) {
+                    wins[j][i]++;
+                } else {
+                    ties[i][j]++;
+                    ties[j][i]++;
+                }
+            }
+        }
+    }
+
+    void addUnreachable() {
+        unreachable++;
+        for (MarathonResult r : perBug) {
+            r.totalMaps++;
+            r.unreachable++;
+        }
+    }
+
+    // Adds the counters of a partial result (e.g. from a parallel worker)
+    public void merge(TournamentResult other) {
+        totalMaps += other.totalMaps;
+        unreachable += other.unreachable;
+
+        for (int i = 0; i < size(); i++) {
+            perBug[i].merge(other.perBug[i]);
+
+            for (int j = 0; j < size(); j++) {
+                wins[i][j] += other.wins[i][j];
+                ties[i][j] += other.ties[i][j];
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package main.simulation;
+
+import java.util.List;
+import java.util.function.Supplier;
+import main.bug.BugAlgorithm;
+import main.bug.BugAlgorithm.BugState;
+import main.simulation.MarathonRunner.MarathonMap;
+
+// Marathon over any number of bugs. Each map (and its optimal path) is
+// generated once, then every bug runs on it, so N bugs cost one map
+// generation and one BFS per map instead of N. Maps are the same as those of
+// a MarathonRunner with the same master seed.
+public class TournamentRunner extends SeededMapRunner {
+
+    public TournamentRunner(int parallelism) {
+        this(parallelism, System.currentTimeMillis());
+    }
+
+    // parallelism <= 0 uses every available core
+    public TournamentRunner(int parallelism, long masterSeed) {
+        super(parallelism, masterSeed);
+    }
+
+    // names.get(i) labels the bugs built by bugFactories.get(i)
+    public TournamentResult run(
+            int numberOfMaps,
+            List<String> names,
+            List<Supplier<BugAlgorithm>> bugFactories
+    ) {
+
+        if (names.size() != bugFactories.size()) {
+            throw new IllegalArgumentException(
+                    names.size() + " names for " + bugFactories.size() + " bugs");
+        }
+
+        TournamentResult result = runChunked(numberOfMaps,
+                (from, to) -> runRange(from, to, names, bugFactories),
+                TournamentResult::merge);
+
+        result.totalMaps = numberOfMaps;
+        return result;
+    }
+
+    private TournamentResult runRange(
+            int from,
+            int to,
+            List<String> names,
+            List<Supplier<BugAlgorithm>> bugFactories
+    ) {
+
+        TournamentResult result = new TournamentResult(names);
+
+        int n = bugFactories.size();
+        BugState[] states = new BugState[n];
+        int[] steps = new int[n];
+        long[] wallTimes = new long[n];
+
+        for (int i = from; i < to; i++) {
+
+            long seed = MarathonRunner.mapSeed(masterSeed, i);
+            MarathonMap m = MarathonRunner.generateMap(seed);
+
+            if (m.goal == null) {
+                result.addUnreachable();
+                continue;
+            }
+
+            for (int b = 0; b < n; b++) {
+
+                long startTime = System.nanoTime();
+
+                BugAlgorithm bug = bugFactories.get(b).get();
+                bug.init(m.grid, m.start, m.goal, MarathonRunner.bugSeed(seed));
+                bug.runUntil(MarathonRunner.MAX_STEPS);
+
+                states[b] = bug.getState();
+                steps[b] = bug.getHistory().size();
+                wallTimes[b] = System.nanoTime() - startTime;
+            }
+
+            result.addMap(m.optimalLength, states, steps, wallTimes);
+        }
+
+        return result;
+    }
+}
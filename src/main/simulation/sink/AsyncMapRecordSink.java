@@ -0,0 +1,103 @@
+package main.simulation.sink;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Hands records to a background thread that writes them to the delegate,
+// so simulation threads never wait on I/O. The queue is bounded: if the
+// disk cannot keep up for a long time, writers block rather than run out
+// of memory. Safe to call write from several threads.
+public class AsyncMapRecordSink implements MapRecordSink {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    // Marks the end of the stream for the writer thread
+    private static final MapRecord END = new MapRecord(
+            -1, 0, 0, 0, 0, 0, 0, 0, 0, 0, null, 0, null, 0);
+
+    private final MapRecordSink delegate;
+    private final BlockingQueue<MapRecord> queue;
+    private final Thread writer;
+
+    private volatile Throwable failure;
+    private boolean closed = false;
+
+    public AsyncMapRecordSink(MapRecordSink delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public AsyncMapRecordSink(MapRecordSink delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::drain, "map-record-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(MapRecord record) throws IOException {
+        checkFailure();
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing map record");
+        }
+    }
+
+    private void drain() {
+        try {
+            MapRecord record;
+            while ((record = queue.take()) != END) {
+                if (failure == null) {
+                    delegate.write(record);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Not only I/O errors: whatever stops the writer is reported to
+            // the producers, and consuming goes on so they are never blocked
+            // on a dead writer
+            failure = e;
+            drainAfterFailure();
+        }
+    }
+
+    private void drainAfterFailure() {
+        try {
+            while (queue.take() != END) {
+                // discard
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Writing map records failed", failure);
+        }
+    }
+
+    // Waits until every queued record is written, then closes the delegate
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while flushing map records");
+        } finally {
+            delegate.close();
+        }
+
+        checkFailure();
+    }
+}
@@ -0,0 +1,56 @@
+package main.simulation.sink;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import main.bug.BugAlgorithm.BugState;
+
+// Fixed-width big-endian records after an 8 byte header ("BMRR", version).
+// Record layout (58 bytes):
+//   int index, long seed, int width, int height,
+//   int startX, int startY, int goalX, int goalY, int optimal,
+//   int bug1Steps, byte bug1State, int bug2Steps, byte bug2State,
+//   long wallTimeNanos
+// States are BugState ordinals, -1 when absent.
+public class BinaryMapRecordSink implements MapRecordSink {
+
+    public static final int MAGIC = 0x424D5252; // "BMRR"
+    public static final int VERSION = 1;
+    public static final int RECORD_SIZE = 58;
+
+    private final DataOutputStream out;
+
+    public BinaryMapRecordSink(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    @Override
+    public void write(MapRecord r) throws IOException {
+        out.writeInt(r.index);
+        out.writeLong(r.seed);
+        out.writeInt(r.width);
+        out.writeInt(r.height);
+        out.writeInt(r.startX);
+        out.writeInt(r.startY);
+        out.writeInt(r.goalX);
+        out.writeInt(r.goalY);
+        out.writeInt(r.optimalLength);
+        out.writeInt(r.bug1Steps);
+        out.writeByte(ordinal(r.bug1State));
+        out.writeInt(r.bug2Steps);
+        out.writeByte(ordinal(r.bug2State));
+        out.writeLong(r.wallTimeNanos);
+    }
+
+    private static int ordinal(BugState state) {
+        return state == null ? -1 : state.ordinal();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,43 @@
+package main.simulation.sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class CsvMapRecordSink implements MapRecordSink {
+
+    private final Writer out;
+
+    public CsvMapRecordSink(OutputStream out) throws IOException {
+        this.out = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        this.out.write("index,seed,width,height,startX,startY,goalX,goalY,optimal,"
+                + "bug1Steps,bug1State,bug2Steps,bug2State,wallTimeNanos\n");
+    }
+
+    @Override
+    public void write(MapRecord r) throws IOException {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(r.index).append(',')
+          .append(r.seed).append(',')
+          .append(r.width).append(',')
+          .append(r.height).append(',')
+          .append(r.startX).append(',')
+          .append(r.startY).append(',')
+          .append(r.goalX).append(',')
+          .append(r.goalY).append(',')
+          .append(r.optimalLength).append(',')
+          .append(r.bug1Steps).append(',')
+          .append(r.bug1State == null ? "" : r.bug1State.name()).append(',')
+          .append(r.bug2Steps).append(',')
+          .append(r.bug2State == null ? "" : r.bug2State.name()).append(',')
+          .append(r.wallTimeNanos).append('\n');
+        out.write(sb.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
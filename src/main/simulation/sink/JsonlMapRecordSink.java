@@ -0,0 +1,46 @@
+package main.simulation.sink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import main.bug.BugAlgorithm.BugState;
+
+public class JsonlMapRecordSink implements MapRecordSink {
+
+    private final Writer out;
+
+    public JsonlMapRecordSink(OutputStream out) {
+        this.out = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void write(MapRecord r) throws IOException {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"index\":").append(r.index)
+          .append(",\"seed\":").append(r.seed)
+          .append(",\"width\":").append(r.width)
+          .append(",\"height\":").append(r.height)
+          .append(",\"start\":[").append(r.startX).append(',').append(r.startY).append(']')
+          .append(",\"goal\":[").append(r.goalX).append(',').append(r.goalY).append(']')
+          .append(",\"optimal\":").append(r.optimalLength)
+          .append(",\"bug1Steps\":").append(r.bug1Steps)
+          .append(",\"bug1State\":").append(quote(r.bug1State))
+          .append(",\"bug2Steps\":").append(r.bug2Steps)
+          .append(",\"bug2State\":").append(quote(r.bug2State))
+          .append(",\"wallTimeNanos\":").append(r.wallTimeNanos)
+          .append("}\n");
+        out.write(sb.toString());
+    }
+
+    private static String quote(BugState state) {
+        return state == null ? "null" : "\"" + state.name() + "\"";
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,47 @@
+package main.simulation.sink;
+
+import main.bug.BugAlgorithm.BugState;
+
+// Outcome of one marathon map. Unreachable maps have no goal (-1, -1), an
+// optimal length of -1 and null bug states; bug 2 fields are only filled in
+// compare mode.
+public class MapRecord {
+
+    public final int index;
+    public final long seed;
+    public final int width;
+    public final int height;
+    public final int startX;
+    public final int startY;
+    public final int goalX;
+    public final int goalY;
+    public final int optimalLength;
+
+    public final int bug1Steps;
+    public final BugState bug1State;
+    public final int bug2Steps;
+    public final BugState bug2State;
+
+    public final long wallTimeNanos;
+
+    public MapRecord(int index, long seed, int width, int height,
+                     int startX, int startY, int goalX, int goalY, int optimalLength,
+                     int bug1Steps, BugState bug1State,
+                     int bug2Steps, BugState bug2State,
+                     long wallTimeNanos) {
+        this.index = index;
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.startX = startX;
+        this.startY = startY;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.optimalLength = optimalLength;
+        this.bug1Steps = bug1Steps;
+        this.bug1State = bug1State;
+        this.bug2Steps = bug2Steps;
+        this.bug2State = bug2State;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+}
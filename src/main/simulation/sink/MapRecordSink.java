@@ -0,0 +1,46 @@
+package main.simulation.sink;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Destination for per-map marathon records
+public interface MapRecordSink extends Closeable {
+
+    void write(MapRecord record) throws IOException;
+
+    // True when open knows the format of the path's extension
+    static boolean isSupported(String path) {
+        return path.endsWith(".csv") || path.endsWith(".jsonl") || path.endsWith(".bin");
+    }
+
+    // Opens a buffered file sink, format chosen by extension (.csv, .jsonl
+    // or .bin), written from a background thread
+    static MapRecordSink open(String path) throws IOException {
+
+        // Checked before the file is created
+        if (!isSupported(path)) {
+            throw new IllegalArgumentException("Unknown record format (use .csv, .jsonl or .bin): " + path);
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(path), 1 << 16);
+        MapRecordSink sink;
+
+        try {
+            if (path.endsWith(".csv")) {
+                sink = new CsvMapRecordSink(out);
+            } else if (path.endsWith(".jsonl")) {
+                sink = new JsonlMapRecordSink(out);
+            } else {
+                sink = new BinaryMapRecordSink(out);
+            }
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+
+        return new AsyncMapRecordSink(sink);
+    }
+}
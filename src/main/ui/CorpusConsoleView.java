@@ -0,0 +1,42 @@
+package main.ui;
+
+import java.util.List;
+
+import main.simulation.CorpusRunner;
+import main.simulation.CorpusRunner.MapResult;
+
+public class CorpusConsoleView {
+
+    public static void show(List<MapResult> maps) {
+
+        System.out.println("\n===== CORPUS RESULTS =====");
+        System.out.printf("%-24s %9s %8s %10s %8s %10s %8s %10s%n",
+                "Map", "Size", "Optimal", "Bug 1", "Steps", "Bug 2", "Steps", "Time (ms)");
+
+        for (MapResult m : maps) {
+
+            if (m.error != null) {
+                System.out.printf("%-24s FAILED: %s%n", m.name, m.error);
+                continue;
+            }
+
+            if (m.bug1State == null) {
+                System.out.printf("%-24s %9s %8s %10s%n",
+                        m.name, m.width + "x" + m.height, "-", "UNREACHABLE");
+                continue;
+            }
+
+            System.out.printf("%-24s %9s %8s %10s %8d %10s %8s %10.3f%n",
+                    m.name,
+                    m.width + "x" + m.height,
+                    m.optimalLength < 0 ? "-" : String.valueOf(m.optimalLength),
+                    m.bug1State,
+                    m.bug1Steps,
+                    m.bug2State == null ? "-" : m.bug2State,
+                    m.bug2State == null ? "-" : String.valueOf(m.bug2Steps),
+                    m.wallTimeNanos / 1e6);
+        }
+
+        MarathonConsoleView.show(CorpusRunner.summarize(maps));
+    }
+}
@@ -0,0 +1,333 @@
+package main.ui;
+
+import main.bug.BugAlgorithm;
+import main.bug.Trajectory;
+import main.grid.Grid;
+
+import javax.swing.JPanel;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.List;
+
+// Map panel that renders from cached layers instead of redrawing every cell
+// on every tick:
+//   - staticLayer: obstacle grid and optimal path, drawn once
+//   - frameLayer: staticLayer plus the bug trails, extended segment by
+//     segment and rebuilt from staticLayer only when a trail is rewound
+// refresh() repaints just the area touched by the new trail segments and
+// the moved bug markers.
+// The layers take 5 bytes per pixel, so maps above MAX_CACHED_PIXELS are
+// painted directly instead, clipped to the visible cells. So are bugs whose
+// history is not a Trajectory, since a rewind of theirs cannot be detected
+// and the frame would have to be rebuilt on every tick.
+public abstract class LayeredGridPanel extends JPanel {
+
+    // 4M pixels: about 100 x 100 cells, 20 MB of layers
+    static final long MAX_CACHED_PIXELS = 1L << 22;
+
+    protected final Grid grid;
+    protected final Point goal;
+    protected final List<Point> optimalPath;
+    protected final int cellSize = 20;
+
+    private final Trail[] trails;
+    private final float optimalStroke;
+
+    private BufferedImage staticLayer;
+    private BufferedImage frameLayer;
+
+    protected LayeredGridPanel(Grid grid, Point goal, List<Point> optimalPath,
+                               float optimalStroke, Trail... trails) {
+
+        this.grid = grid;
+        this.goal = goal;
+        this.optimalPath = optimalPath;
+        this.optimalStroke = optimalStroke;
+        this.trails = trails;
+
+        setPreferredSize(new Dimension(
+                grid.getWidth() * cellSize,
+                grid.getHeight() * cellSize));
+    }
+
+    // Goal and bug markers, painted on top of the cached layers
+    protected abstract void paintOverlay(Graphics g);
+
+    // Call after the bugs moved (or were rewound) instead of repaint()
+    public void refresh() {
+
+        if (!useLayers()) {
+            staticLayer = null;
+            frameLayer = null;
+            repaint();
+            return;
+        }
+
+        if (frameLayer == null) {
+            repaint();
+            return;
+        }
+
+        for (Trail trail : trails) {
+            if (trail.isStale()) {
+                rebuildFrame();
+                repaint();
+                return;
+            }
+        }
+
+        Rectangle dirty = null;
+        Graphics2D g2 = frameLayer.createGraphics();
+
+        for (Trail trail : trails) {
+            dirty = union(dirty, drawNewSegments(trail, g2));
+
+            Point p = trail.bug.getCurrentPosition();
+            dirty = union(dirty, cellBounds(trail.markerX, trail.markerY));
+            dirty = union(dirty, cellBounds(p.x, p.y));
+            trail.markerX = p.x;
+            trail.markerY = p.y;
+        }
+
+        g2.dispose();
+
+        if (dirty != null) {
+            repaint(dirty);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (!useLayers()) {
+            paintDirect(g);
+            paintOverlay(g);
+            return;
+        }
+
+        if (frameLayer == null) {
+            buildStaticLayer();
+            frameLayer = new BufferedImage(staticLayer.getWidth(), staticLayer.getHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            rebuildFrame();
+        }
+
+        g.drawImage(frameLayer, 0, 0, null);
+        paintOverlay(g);
+    }
+
+    private boolean useLayers() {
+
+        long pixels = (long) (grid.getWidth() * cellSize + 1) * (grid.getHeight() * cellSize + 1);
+        if (pixels > MAX_CACHED_PIXELS) return false;
+
+        for (Trail trail : trails) {
+            if (!(trail.bug.getHistory() instanceof Trajectory)) return false;
+        }
+        return true;
+    }
+
+    // Paints what the layers would hold, limited to the cells in the clip
+    private void paintDirect(Graphics g) {
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, grid.getWidth() * cellSize + 1, grid.getHeight() * cellSize + 1);
+        }
+
+        int x0 = Math.max(clip.x / cellSize, 0);
+        int y0 = Math.max(clip.y / cellSize, 0);
+        int x1 = Math.min((clip.x + clip.width) / cellSize, grid.getWidth() - 1);
+        int y1 = Math.min((clip.y + clip.height) / cellSize, grid.getHeight() - 1);
+
+        Graphics2D g2 = (Graphics2D) g.create();
+
+        g2.setColor(Color.WHITE);
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+        paintCells(g2, x0, y0, x1, y1);
+        paintOptimalPath(g2);
+
+        for (Trail trail : trails) {
+
+            List<Point> history = trail.bug.getHistory();
+            g2.setColor(trail.color);
+            g2.setStroke(new BasicStroke(trail.stroke));
+
+            for (int i = 0; i < history.size() - 1; i++) {
+                Point p1 = history.get(i);
+                Point p2 = history.get(i + 1);
+                g2.drawLine(center(p1.x), center(p1.y), center(p2.x), center(p2.y));
+            }
+        }
+
+        g2.dispose();
+    }
+
+    private void buildStaticLayer() {
+
+        // Only four colours are used, so one byte per pixel is enough
+        Color[] palette = { Color.WHITE, Color.BLACK, Color.GRAY, Color.BLUE };
+        byte[] r = new byte[palette.length];
+        byte[] gr = new byte[palette.length];
+        byte[] b = new byte[palette.length];
+        for (int i = 0; i < palette.length; i++) {
+            r[i] = (byte) palette[i].getRed();
+            gr[i] = (byte) palette[i].getGreen();
+            b[i] = (byte) palette[i].getBlue();
+        }
+
+        staticLayer = new BufferedImage(
+                grid.getWidth() * cellSize + 1,
+                grid.getHeight() * cellSize + 1,
+                BufferedImage.TYPE_BYTE_INDEXED,
+                new IndexColorModel(2, palette.length, r, gr, b));
+
+        Graphics2D g2 = staticLayer.createGraphics();
+
+        g2.setColor(Color.WHITE);
+        g2.fillRect(0, 0, staticLayer.getWidth(), staticLayer.getHeight());
+        paintCells(g2, 0, 0, grid.getWidth() - 1, grid.getHeight() - 1);
+        paintOptimalPath(g2);
+
+        g2.dispose();
+    }
+
+    // Obstacles and grid lines of the cells [x0, x1] x [y0, y1]
+    private void paintCells(Graphics2D g2, int x0, int y0, int x1, int y1) {
+
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+
+                if (grid.isObstacle(x, y)) {
+                    g2.setColor(Color.BLACK);
+                    g2.fillRect(x * cellSize, y * cellSize, cellSize, cellSize);
+                }
+
+                g2.setColor(Color.GRAY);
+                g2.drawRect(x * cellSize, y * cellSize, cellSize, cellSize);
+            }
+        }
+    }
+
+    private void paintOptimalPath(Graphics2D g2) {
+
+        if (optimalPath != null && optimalPath.size() > 1) {
+
+            g2.setColor(Color.BLUE);
+            g2.setStroke(new BasicStroke(optimalStroke));
+
+            for (int i = 0; i < optimalPath.size() - 1; i++) {
+
+                Point p1 = optimalPath.get(i);
+                Point p2 = optimalPath.get(i + 1);
+
+                g2.drawLine(center(p1.x), center(p1.y), center(p2.x), center(p2.y));
+            }
+        }
+    }
+
+    private void rebuildFrame() {
+
+        Graphics2D g2 = frameLayer.createGraphics();
+        g2.drawImage(staticLayer, 0, 0, null);
+
+        for (Trail trail : trails) {
+            trail.restart();
+            drawNewSegments(trail, g2);
+
+            Point p = trail.bug.getCurrentPosition();
+            trail.markerX = p.x;
+            trail.markerY = p.y;
+        }
+
+        g2.dispose();
+    }
+
+    // Draws the trail segments added since the last call, returns their bounds
+    private Rectangle drawNewSegments(Trail trail, Graphics2D g2) {
+
+        List<Point> history = trail.bug.getHistory();
+        int size = history.size();
+        int from = Math.max(trail.drawnSteps - 1, 0);
+
+        if (size - from < 2) {
+            trail.drawnSteps = Math.max(trail.drawnSteps, size);
+            return null;
+        }
+
+        g2.setColor(trail.color);
+        g2.setStroke(new BasicStroke(trail.stroke));
+
+        Point p1 = history.get(from);
+        int minX = p1.x, maxX = p1.x, minY = p1.y, maxY = p1.y;
+
+        for (int i = from + 1; i < size; i++) {
+
+            Point p2 = history.get(i);
+            g2.drawLine(center(p1.x), center(p1.y), center(p2.x), center(p2.y));
+
+            minX = Math.min(minX, p2.x);
+            maxX = Math.max(maxX, p2.x);
+            minY = Math.min(minY, p2.y);
+            maxY = Math.max(maxY, p2.y);
+            p1 = p2;
+        }
+
+        trail.drawnSteps = size;
+
+        int pad = (int) Math.ceil(trail.stroke) + 1;
+        return new Rectangle(
+                center(minX) - pad,
+                center(minY) - pad,
+                (maxX - minX) * cellSize + 2 * pad,
+                (maxY - minY) * cellSize + 2 * pad);
+    }
+
+    private int center(int cell) {
+        return cell * cellSize + cellSize / 2;
+    }
+
+    private Rectangle cellBounds(int x, int y) {
+        return new Rectangle(x * cellSize, y * cellSize, cellSize + 1, cellSize + 1);
+    }
+
+    private static Rectangle union(Rectangle a, Rectangle b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.union(b);
+    }
+
+    // Trail of one bug and how much of it is already on the frame layer
+    protected static class Trail {
+
+        final BugAlgorithm bug;
+        final Color color;
+        final float stroke;
+
+        int drawnSteps;
+        int version;
+        int markerX;
+        int markerY;
+
+        public Trail(BugAlgorithm bug, Color color, float stroke) {
+            this.bug = bug;
+            this.color = color;
+            this.stroke = stroke;
+        }
+
+        void restart() {
+            drawnSteps = 0;
+            version = ((Trajectory) bug.getHistory()).getVersion();
+        }
+
+        // True when steps already drawn may have been replaced. Only used
+        // with Trajectory histories, see useLayers().
+        boolean isStale() {
+            Trajectory history = (Trajectory) bug.getHistory();
+            return history.getVersion() != version
+                    || history.size() < drawnSteps;
+        }
+    }
+}
@@ -11,15 +11,32 @@ public class MarathonConsoleView {
         System.out.println("Completed: " + r.completed);
         System.out.println("Gave up: " + r.gaveUp);
         System.out.println("Terminated: " + r.terminated);
+        System.out.println("Unreachable: " + r.unreachable);
 
         System.out.printf("Average steps: %.2f%n", r.averageSteps());
         System.out.printf("Average optimal: %.2f%n", r.averageOptimal());
         System.out.printf("Efficiency: %.3f%n", r.efficiency());
 
+        System.out.println("----------------------------");
+        System.out.printf("%-20s %10s %10s %10s %10s%n", "", "p50", "p90", "p99", "max");
+        showHistogram("Path length", r.pathLength, 1);
+        showHistogram("Steps over optimal", r.stepsOverOptimal, 1);
+        showHistogram("Efficiency", r.efficiencyRatio, MarathonResult.EFFICIENCY_SCALE);
+        showHistogram("Wall time (ms)", r.wallTimeNanos, 1_000_000);
+
         System.out.println("============================");
 
         System.out.println("Wins: " + r.wins);
         System.out.println("Losses: " + r.losses);
         System.out.println("Ties: " + r.ties);
     }
+
+    private static void showHistogram(String name, LogHistogram h, double scale) {
+        String cell = (scale == 1) ? "%10.0f" : "%10.3f";
+        System.out.printf("%-20s " + cell + " " + cell + " " + cell + " " + cell + "%n", name,
+                h.percentile(50) / scale,
+                h.percentile(90) / scale,
+                h.percentile(99) / scale,
+                h.getMax() / scale);
+    }
 }
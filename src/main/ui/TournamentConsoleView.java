@@ -0,0 +1,52 @@
+package main.ui;
+
+import main.simulation.*;
+
+public class TournamentConsoleView {
+
+    public static void show(TournamentResult r) {
+
+        int n = r.size();
+
+        System.out.println("\n===== TOURNAMENT RESULTS =====");
+        System.out.println("Total maps: " + r.totalMaps);
+        System.out.println("Unreachable: " + r.unreachable);
+
+        System.out.println("----------------------------");
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s %10s%n",
+                "Bug", "Completed", "Gave up", "Terminated", "Avg steps", "Efficiency", "p99 len", "p50 ms");
+
+        for (int i = 0; i < n; i++) {
+            MarathonResult b = r.perBug[i];
+            System.out.printf("%-12s %10d %10d %10d %10.2f %10.3f %10d %10.3f%n",
+                    r.names.get(i),
+                    b.completed,
+                    b.gaveUp,
+                    b.terminated,
+                    b.averageSteps(),
+                    b.efficiency(),
+                    b.pathLength.percentile(99),
+                    b.wallTimeNanos.percentile(50) / 1e6);
+        }
+
+        // Row bug against column bug, as wins-losses-ties
+        System.out.println("----------------------------");
+        System.out.printf("%-12s", "W-L-T");
+        for (int j = 0; j < n; j++) {
+            System.out.printf(" %18s", r.names.get(j));
+        }
+        System.out.println();
+
+        for (int i = 0; i < n; i++) {
+            System.out.printf("%-12s", r.names.get(i));
+            for (int j = 0; j < n; j++) {
+                String cell = (i == j) ? "-"
+                        : r.wins[i][j] + "-" + r.wins[j][i] + "-" + r.ties[i][j];
+                System.out.printf(" %18s", cell);
+            }
+            System.out.println();
+        }
+
+        System.out.println("============================");
+    }
+}